@@ -0,0 +1,459 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import com.mastfrog.geometry.Circle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A composition of forces compiled once into a flat program over an array of
+ * double registers, which can then be evaluated for any number of points
+ * without allocating. Compositions are built from {@link Expression}s with
+ * the same <code>and()</code> / <code>or()</code> semantics as {@link Force},
+ * and each stage computes exactly what the corresponding Force class does;
+ * operands are either constants or <i>slots</i> the caller sets before each
+ * evaluation (say, the position of the node exerting the force).
+ * <p>
+ * Instances are not thread-safe; use {@link #copy()} to get an evaluator
+ * per thread.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+final class CompiledForce {
+
+    private static final int OP_REPULSION = 1;
+    private static final int OP_ATTRACTION = 2;
+    private static final int OP_TOWARD = 3;
+    private static final int OP_ROTATION = 4;
+    private static final int OP_SAVE = 5;
+    private static final int OP_OR_ELSE = 6;
+    private static final int WIDTH = 6;
+    private static final double ATTRACTION_THRESHOLD = 0.001;
+    private final int[] program;
+    private final double[] registers;
+    private final double[] position = new double[2];
+    private double x;
+    private double y;
+
+    private CompiledForce(int[] program, double[] registers) {
+        this.program = program;
+        this.registers = registers;
+    }
+
+    CompiledForce copy() {
+        return new CompiledForce(program, registers.clone());
+    }
+
+    /**
+     * Set the value of a slot for subsequent evaluations.
+     *
+     * @param slot The slot
+     * @param value The value
+     * @return this
+     */
+    CompiledForce set(int slot, double value) {
+        registers[slot] = value;
+        return this;
+    }
+
+    double x() {
+        return x;
+    }
+
+    double y() {
+        return y;
+    }
+
+    /**
+     * Apply the forces to a point; the result is available from
+     * <code>x()</code> and <code>y()</code>.
+     *
+     * @param px The x coordinate
+     * @param py The y coordinate
+     * @return this
+     */
+    CompiledForce apply(double px, double py) {
+        final int[] p = program;
+        final double[] r = registers;
+        double cx;
+        double cy;
+        double dist;
+        for (int pc = 0; pc < p.length; pc += WIDTH) {
+            switch (p[pc]) {
+                case OP_REPULSION:
+                    // ForceDirected.Repul
+                    cx = r[p[pc + 1]];
+                    cy = r[p[pc + 2]];
+                    dist = distance(cx, cy, px, py);
+                    if (dist < r[p[pc + 3]]) {
+                        Circle.positionOf(Circle.angleOf(cx, cy, px, py) + 2, cx, cy,
+                                dist + 1, position, 0);
+                        px = position[0];
+                        py = position[1];
+                    }
+                    break;
+                case OP_ATTRACTION:
+                    // Attraction
+                    cx = r[p[pc + 1]];
+                    cy = r[p[pc + 2]];
+                    double radius = r[p[pc + 3]];
+                    double rel = r[p[pc + 4]];
+                    double minRel = r[p[pc + 5]];
+                    dist = distance(cx, cy, px, py);
+                    if (Math.abs(dist - radius) >= ATTRACTION_THRESHOLD) {
+                        double diff = -Math.abs(dist - radius);
+                        double falloff = Math.max(diff, 1);
+                        falloff = 1D / (falloff * falloff);
+                        double strength = dist < radius
+                                ? (rel + (rel * .025)) * -falloff
+                                : (rel + (rel * .025)) * 0.01 * falloff;
+                        if (rel > 0 && rel > minRel && strength >= 0.01) {
+                            Circle.positionOf(Circle.angleOf(cx, cy, px, py), cx, cy,
+                                    dist + (strength * diff), position, 0);
+                            px = position[0];
+                            py = position[1];
+                        }
+                    }
+                    break;
+                case OP_TOWARD:
+                    // SimpleForce with a constant or linear strength
+                    cx = r[p[pc + 1]];
+                    cy = r[p[pc + 2]];
+                    dist = distance(cx, cy, px, py);
+                    double str;
+                    if (dist > r[p[pc + 4]]) {
+                        str = 0;
+                    } else if (p[pc + 5] != 0) {
+                        str = r[p[pc + 3]] * (1D / Math.max(dist, 1));
+                    } else {
+                        str = r[p[pc + 3]];
+                    }
+                    // As with SimpleForce, a zero strength still round-trips
+                    // the point through polar coordinates
+                    str *= 6;
+                    double newRad = str < 0D ? dist + -str : dist - str;
+                    Circle.positionOf(Circle.angleOf(cx, cy, px, py), cx, cy,
+                            newRad, position, 0);
+                    px = position[0];
+                    py = position[1];
+                    break;
+                case OP_ROTATION:
+                    // RotationalForce with an inverse-square strength
+                    cx = r[p[pc + 1]];
+                    cy = r[p[pc + 2]];
+                    dist = distance(cx, cy, px, py);
+                    if (dist < r[p[pc + 4]]) {
+                        double d = Math.max(dist, 1);
+                        double angle = Circle.angleOf(cx, cy, px, py)
+                                + r[p[pc + 3]] * (1D / (d * d));
+                        Circle.positionOf(angle, cx, cy, dist, position, 0);
+                        px = position[0];
+                        py = position[1];
+                    }
+                    break;
+                case OP_SAVE:
+                    r[p[pc + 1]] = px;
+                    r[p[pc + 1] + 1] = py;
+                    break;
+                case OP_OR_ELSE:
+                    double ox = r[p[pc + 1]];
+                    double oy = r[p[pc + 1] + 1];
+                    if (Math.abs(px - ox) <= 0.1 && Math.abs(py - oy) <= 0.1) {
+                        // First branch had no effect - run the second on
+                        // the original point
+                        px = ox;
+                        py = oy;
+                    } else {
+                        pc += p[pc + 2] * WIDTH;
+                    }
+                    break;
+                default:
+                    throw new AssertionError("Bad op " + p[pc] + " at " + pc);
+            }
+        }
+        x = px;
+        y = py;
+        return this;
+    }
+
+    private static double distance(double cx, double cy, double px, double py) {
+        double dx = px - cx;
+        double dy = py - cy;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * An operand to a compiled force - a slot or a constant.
+     */
+    static final class Operand {
+
+        private final int slot;
+        private final double value;
+
+        private Operand(int slot, double value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        boolean isConstant() {
+            return slot < 0;
+        }
+    }
+
+    static Operand slot(int slot) {
+        if (slot < 0) {
+            throw new IllegalArgumentException("Negative slot " + slot);
+        }
+        return new Operand(slot, 0);
+    }
+
+    static Operand constant(double value) {
+        return new Operand(-1, value);
+    }
+
+    /**
+     * Moves points within a threshold of the center one pixel further away
+     * and two degrees around it, as ForceDirected.Repul does.
+     */
+    static Expression repulsion(Operand centerX, Operand centerY, Operand threshold) {
+        return new Stage(OP_REPULSION, centerX, centerY, threshold);
+    }
+
+    /**
+     * Pulls points beyond a radius toward it in proportion to relatedness,
+     * as {@link Attraction} does.
+     */
+    static Expression attraction(Operand centerX, Operand centerY, Operand radius,
+            Operand relatedness, Operand minRelatedness) {
+        return new Stage(OP_ATTRACTION, centerX, centerY, radius, relatedness, minRelatedness);
+    }
+
+    /**
+     * Moves points toward (or, with a negative multiplier, away from) the
+     * center as {@link SimpleForce} does, with a strength that is either the
+     * multiplier, or the multiplier divided by distance, and zero beyond the
+     * bound.
+     */
+    static Expression toward(Operand centerX, Operand centerY, Operand multiplier,
+            Operand bound, boolean inverseDistance) {
+        return new Stage(OP_TOWARD, inverseDistance ? 1 : 0, centerX, centerY,
+                multiplier, bound);
+    }
+
+    /**
+     * Rotates points within a threshold around the center by the multiplier
+     * over the square of the distance, as {@link RotationalForce} does with
+     * an inverse-square strength.
+     */
+    static Expression rotation(Operand centerX, Operand centerY, Operand multiplier,
+            Operand threshold) {
+        return new Stage(OP_ROTATION, centerX, centerY, multiplier, threshold);
+    }
+
+    /**
+     * An expression which leaves the point where it is.
+     */
+    static final Expression NONE = new Expression() {
+        @Override
+        void emit(Compiler compiler) {
+            // do nothing
+        }
+    };
+
+    abstract static class Expression {
+
+        Expression and(Expression next) {
+            return new And(this, next);
+        }
+
+        Expression or(Expression fallback) {
+            return new Or(this, fallback);
+        }
+
+        /**
+         * Compile this expression.
+         *
+         * @param slotCount The number of caller-settable slots
+         * @return An evaluator
+         */
+        CompiledForce compile(int slotCount) {
+            Compiler compiler = new Compiler(slotCount);
+            emit(compiler);
+            return compiler.build();
+        }
+
+        abstract void emit(Compiler compiler);
+    }
+
+    private static final class Stage extends Expression {
+
+        private final int op;
+        private final int flag;
+        private final Operand[] operands;
+
+        Stage(int op, Operand... operands) {
+            this(op, 0, operands);
+        }
+
+        Stage(int op, int flag, Operand... operands) {
+            assert operands.length < WIDTH;
+            this.op = op;
+            this.flag = flag;
+            this.operands = operands;
+        }
+
+        @Override
+        void emit(Compiler compiler) {
+            int[] insn = new int[WIDTH];
+            insn[0] = op;
+            for (int i = 0; i < operands.length; i++) {
+                insn[i + 1] = compiler.register(operands[i]);
+            }
+            if (op == OP_TOWARD) {
+                insn[WIDTH - 1] = flag;
+            }
+            compiler.add(insn);
+        }
+    }
+
+    private static final class And extends Expression {
+
+        private final Expression first;
+        private final Expression second;
+
+        And(Expression first, Expression second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        void emit(Compiler compiler) {
+            first.emit(compiler);
+            second.emit(compiler);
+        }
+    }
+
+    private static final class Or extends Expression {
+
+        private final Expression first;
+        private final Expression second;
+
+        Or(Expression first, Expression second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        void emit(Compiler compiler) {
+            int save = compiler.saveRegister();
+            compiler.add(new int[]{OP_SAVE, save, 0, 0, 0, 0});
+            first.emit(compiler);
+            int[] branch = new int[]{OP_OR_ELSE, save, 0, 0, 0, 0};
+            compiler.add(branch);
+            int before = compiler.size();
+            second.emit(compiler);
+            // Number of instructions to skip if the first branch moved
+            // the point
+            branch[2] = compiler.size() - before;
+        }
+    }
+
+    private static final class Compiler {
+
+        private final List<int[]> instructions = new ArrayList<>();
+        private final int slotCount;
+        private int nextSave;
+        private double[] constants = new double[0];
+
+        Compiler(int slotCount) {
+            this.slotCount = slotCount;
+            this.nextSave = slotCount;
+        }
+
+        int saveRegister() {
+            int result = nextSave;
+            nextSave += 2;
+            return result;
+        }
+
+        int register(Operand operand) {
+            if (!operand.isConstant()) {
+                if (operand.slot >= slotCount) {
+                    throw new IllegalArgumentException("Slot " + operand.slot
+                            + " out of range " + slotCount);
+                }
+                return operand.slot;
+            }
+            // Constants are encoded as negative indices and relocated
+            // after the save registers once compilation is complete
+            constants = Arrays.copyOf(constants, constants.length + 1);
+            constants[constants.length - 1] = operand.value;
+            return -constants.length;
+        }
+
+        void add(int[] instruction) {
+            instructions.add(instruction);
+        }
+
+        int size() {
+            return instructions.size();
+        }
+
+        CompiledForce build() {
+            int constantBase = nextSave;
+            double[] registers = new double[constantBase + constants.length];
+            System.arraycopy(constants, 0, registers, constantBase, constants.length);
+            int[] program = new int[instructions.size() * WIDTH];
+            for (int i = 0; i < instructions.size(); i++) {
+                int[] insn = instructions.get(i);
+                program[i * WIDTH] = insn[0];
+                for (int j = 1; j < WIDTH; j++) {
+                    int val = insn[j];
+                    if (val < 0 && isRegisterOperand(insn[0], j)) {
+                        val = constantBase + (-val - 1);
+                    }
+                    program[(i * WIDTH) + j] = val;
+                }
+            }
+            return new CompiledForce(program, registers);
+        }
+
+        private static boolean isRegisterOperand(int op, int index) {
+            switch (op) {
+                case OP_SAVE:
+                case OP_OR_ELSE:
+                    return false;
+                case OP_TOWARD:
+                    return index < WIDTH - 1;
+                default:
+                    return true;
+            }
+        }
+    }
+}
@@ -103,4 +103,48 @@ import com.mastfrog.geometry.EqLine;
         }
     }
 
+    /**
+     * Allocation-free equivalent of <code>accept()</code> for a compiled
+     * delegate, sharing the same damping state.
+     *
+     * @param a The x coordinate
+     * @param b The y coordinate
+     * @param delegate The forces to damp
+     * @param into An array to store the resulting x and y in
+     */
+    void apply(double a, double b, CompiledForce delegate, double[] into) {
+        switch (ticks++) {
+            case 0:
+                circle.setCenter(a, b);
+                break;
+            case 1:
+                line.setLine(circle.centerX(), circle.centerY(), a, b);
+                circle.setRadius(line.length());
+                circle.setCenter(line.x1 + (line.x2 - line.x1) / 2, line.y1 + (line.y2 - line.y1) / 2);
+                break;
+            default:
+                line.setLine(circle.centerX(), circle.centerY(), a, b);
+                if (circle.contains(a, b)) {
+                    double str = strength.computeStrength(circle.centerX(), circle.centerY(), a, b, 25);
+                    delegate.apply(a, b);
+                    ln.setLine(a, b, delegate.x(), delegate.y());
+                    ln.setLength(ln.length() * str);
+                    into[0] = ln.x2;
+                    into[1] = ln.y2;
+                    circle.setRadius(Math.max(20, circle.radius() * 0.9825));
+                    line.setLength(line.length() * 0.5, true);
+                    circle.setCenter(line.x1, line.y1);
+                    return;
+                }
+                double origLen = line.length();
+                if (origLen > 0) {
+                    circle.setCenter(line.x1 + (line.x2 - line.x1) / 2, line.y1 + (line.y2 - line.y1) / 2);
+                    circle.setRadius(Math.max(20, Math.max(circle.radius() * 1.1, origLen * 0.75)));
+                }
+        }
+        delegate.apply(a, b);
+        into[0] = delegate.x();
+        into[1] = delegate.y();
+    }
+
 }
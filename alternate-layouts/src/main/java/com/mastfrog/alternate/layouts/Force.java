@@ -53,7 +53,7 @@ import com.mastfrog.function.DoubleBiConsumer;
                 if (a == a1 && b == b1) {
                     f.accept(a, b, xf);
                 } else {
-                    double deltaA = Math.abs(a1 - 1);
+                    double deltaA = Math.abs(a1 - a);
                     double deltaB = Math.abs(b1 - b);
                     if (deltaA <= 0.1 && deltaB <= 0.1) {
                         f.accept(a, b, xf);
@@ -37,9 +37,10 @@ import edu.uci.ics.jung.graph.Graph;
 import java.awt.Dimension;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * An experimental force-directed graph which works well for some
@@ -48,54 +49,204 @@ import java.util.Set;
  * input graph was created from one using the adapter project, it
  * will be detected with zero-overhead; else the graph may be copied
  * to use it.
+ * <p>
+ * Positions are read straight from the layout's coordinate arrays, and
+ * the layout runs headless, so it can be handed to
+ * <code>JungScene.setGraphLayout()</code> like any other iterative JUNG
+ * layout. Resetting scatters the nodes again without recomputing the
+ * (expensive) relatedness of each pair of nodes.
+ * </p>
  *
  * @author Tim Boudreau
  */
 public class ForceDir<V, E> implements Layout<V, E>, IterativeContext {
 
+    private static final double DEFAULT_DONE_THRESHOLD = 12;
     private final Graph<V, E> graph;
-    private final Set<V> locked = new HashSet<>();
     private final ObjectGraph<V> delegate;
-    private ForceDirected fd;
-    private IndexedResolvable<? extends V> ir;
-    private IntGraph ig;
+    private final ForceDirected fd;
+    private final Map<V, Integer> indices;
+    private final Point2D.Double[] points;
+    private double doneThreshold = DEFAULT_DONE_THRESHOLD;
 
+    /**
+     * Create a layout which relates nodes by the simple paths between them;
+     * that takes time exponential in the number of cycles, so for anything
+     * but trees and small graphs use one of the factory methods instead.
+     *
+     * @param graph The graph
+     * @param delegate The graph as an ObjectGraph
+     */
     public ForceDir(Graph<V, E> graph, ObjectGraph<V> delegate) {
-        this.graph = graph;
-        this.delegate = delegate;
-        delegate.toIntGraph((ir, ig) -> {
-            this.ir = ir;
-            this.ig = ig;
-        });
-        fd = new ForceDirected(ig, 40000, 40000);
+        this(graph, delegate, RelatednessModel.SIMPLE_PATHS);
     }
 
+    /**
+     * Create a layout which relates nodes by the simple paths between them;
+     * that takes time exponential in the number of cycles, so for anything
+     * but trees and small graphs use one of the factory methods instead.
+     *
+     * @param graph The graph
+     */
     public ForceDir(Graph<V, E> graph) {
         this(graph, fromGraph(graph));
     }
 
+    /**
+     * Create a layout which relates nodes by the number of shortest paths
+     * between them, up to a maximum length; polynomial time, so usable for
+     * graphs with cycles.
+     *
+     * @param <V> The vertex type
+     * @param <E> The edge type
+     * @param graph The graph
+     * @param maxDepth The longest path considered
+     * @return A layout
+     */
+    public static <V, E> ForceDir<V, E> shortestPaths(Graph<V, E> graph, int maxDepth) {
+        return shortestPaths(graph, fromGraph(graph), maxDepth);
+    }
+
+    /**
+     * Create a layout which relates nodes by the number of shortest paths
+     * between them, up to a maximum length; polynomial time, so usable for
+     * graphs with cycles.
+     *
+     * @param <V> The vertex type
+     * @param <E> The edge type
+     * @param graph The graph
+     * @param delegate The graph as an ObjectGraph
+     * @param maxDepth The longest path considered
+     * @return A layout
+     */
+    public static <V, E> ForceDir<V, E> shortestPaths(Graph<V, E> graph,
+            ObjectGraph<V> delegate, int maxDepth) {
+        return new ForceDir<>(graph, delegate, RelatednessModel.shortestPaths(maxDepth));
+    }
+
+    /**
+     * Create a layout which relates nodes by a truncated Katz index - walks
+     * of each length up to <code>maxDepth</code>, each step attenuated by
+     * the passed factor; polynomial time, so usable for graphs with cycles.
+     *
+     * @param <V> The vertex type
+     * @param <E> The edge type
+     * @param graph The graph
+     * @param maxDepth The longest walk counted
+     * @param attenuation The per-step attenuation, between 0 and 1
+     * @return A layout
+     */
+    public static <V, E> ForceDir<V, E> katz(Graph<V, E> graph, int maxDepth,
+            double attenuation) {
+        return katz(graph, fromGraph(graph), maxDepth, attenuation);
+    }
+
+    /**
+     * Create a layout which relates nodes by a truncated Katz index - walks
+     * of each length up to <code>maxDepth</code>, each step attenuated by
+     * the passed factor; polynomial time, so usable for graphs with cycles.
+     *
+     * @param <V> The vertex type
+     * @param <E> The edge type
+     * @param graph The graph
+     * @param delegate The graph as an ObjectGraph
+     * @param maxDepth The longest walk counted
+     * @param attenuation The per-step attenuation, between 0 and 1
+     * @return A layout
+     */
+    public static <V, E> ForceDir<V, E> katz(Graph<V, E> graph,
+            ObjectGraph<V> delegate, int maxDepth, double attenuation) {
+        return new ForceDir<>(graph, delegate, RelatednessModel.katz(maxDepth, attenuation));
+    }
+
+    ForceDir(Graph<V, E> graph, ObjectGraph<V> delegate, RelatednessModel model) {
+        this.graph = graph;
+        this.delegate = delegate;
+        IntGraph[] ig = new IntGraph[1];
+        List<V> nodes = new ArrayList<>(delegate.size());
+        delegate.toIntGraph((IndexedResolvable<? extends V> ir, IntGraph g) -> {
+            ig[0] = g;
+            for (int i = 0; i < ir.size(); i++) {
+                nodes.add(ir.forIndex(i));
+            }
+        });
+        indices = new HashMap<>(nodes.size() * 2);
+        for (int i = 0; i < nodes.size(); i++) {
+            indices.put(nodes.get(i), i);
+        }
+        points = new Point2D.Double[nodes.size()];
+        fd = new ForceDirected(ig[0], 40000, 40000, null, model);
+        fd.computeBounds();
+    }
+
+    @SuppressWarnings("unchecked")
     private static <V, E> ObjectGraph<V> fromGraph(Graph<V, E> graph) {
         ObjectGraph<V> og = Wrapper.find(graph, ObjectGraph.class);
         if (og != null) {
             return og;
         }
         List<V> all = new ArrayList<>(graph.getVertices());
+        Map<V, Integer> indices = new HashMap<>(all.size() * 2);
+        for (int i = 0; i < all.size(); i++) {
+            indices.put(all.get(i), i);
+        }
         IntGraphBuilder ib = IntGraph.builder();
         for (int i = 0; i < all.size(); i++) {
             V v = all.get(i);
             for (E edge : graph.getOutEdges(v)) {
                 V v1 = graph.getDest(edge);
                 if (v != v1) {
-                    ib.addEdge(i, all.indexOf(v1));
+                    ib.addEdge(i, indices.get(v1));
                 }
             }
         }
         return ib.build().toObjectGraph(all);
     }
 
+    /**
+     * Skip pairs of nodes which are too far apart to act on each other,
+     * finding those which are close enough with a quadtree on each step,
+     * rather than visiting every pair. Pairs which act on each other at any
+     * distance - related nodes, hubs, leaves and isolated nodes - are always
+     * visited, so the positions computed are the same as without it; only
+     * the time taken differs. Larger graphs should use this.
+     *
+     * @param nearOnly Whether to skip distant pairs
+     * @return this
+     */
+    public ForceDir<V, E> setNearOnly(boolean nearOnly) {
+        fd.setNearOnly(nearOnly);
+        return this;
+    }
+
+    /**
+     * Compute each step from the previous positions using the passed pool,
+     * making steps deterministic for a given starting state regardless of
+     * thread count; null updates positions in place on the calling thread.
+     *
+     * @param pool A pool or null
+     * @return this
+     */
+    public ForceDir<V, E> setThreadPool(ForkJoinPool pool) {
+        fd.setSynchronous(pool);
+        return this;
+    }
+
+    /**
+     * Set the largest distance any node may move in one step for the
+     * layout to be considered done.
+     *
+     * @param threshold The threshold
+     * @return this
+     */
+    public ForceDir<V, E> setDoneThreshold(double threshold) {
+        this.doneThreshold = threshold;
+        return this;
+    }
+
     @Override
     public void initialize() {
-        fd = new ForceDirected(ig, 40000, 40000);
+        fd.resetPositions();
     }
 
     @Override
@@ -119,6 +270,8 @@ public class ForceDir<V, E> implements Layout<V, E>, IterativeContext {
 
     @Override
     public void setSize(Dimension d) {
+        // The layout uses its own coordinate space, and reports the
+        // bounds of its nodes as its size
     }
 
     @Override
@@ -128,25 +281,40 @@ public class ForceDir<V, E> implements Layout<V, E>, IterativeContext {
 
     @Override
     public void lock(V v, boolean state) {
+        Integer ix = indices.get(v);
+        if (ix != null) {
+            fd.setLocked(ix, state);
+        }
     }
 
     @Override
     public boolean isLocked(V v) {
-        return false;
+        Integer ix = indices.get(v);
+        return ix != null && fd.isLocked(ix);
     }
 
     @Override
     public void setLocation(V v, Point2D location) {
-        int ix = ir.indexOf(v);
-        if (ix >= 0) {
-            fd.setLocation(ix, location.getX(), location.getY());
+        Integer ix = indices.get(v);
+        if (ix != null) {
+            // Incoming locations are in the normalized space apply()
+            // returns
+            fd.setLocation(ix, location.getX() + fd.minX(), location.getY() + fd.minY());
         }
     }
 
     @Override
     public Point2D apply(V f) {
-        int ix = ir.indexOf(f);
-        return new Point2D.Double(fd.xNorm(ix), fd.yNorm(ix));
+        Integer ix = indices.get(f);
+        if (ix == null) {
+            return new Point2D.Double();
+        }
+        Point2D.Double result = points[ix];
+        if (result == null) {
+            result = points[ix] = new Point2D.Double();
+        }
+        result.setLocation(fd.xNorm(ix), fd.yNorm(ix));
+        return result;
     }
 
     @Override
@@ -156,7 +324,6 @@ public class ForceDir<V, E> implements Layout<V, E>, IterativeContext {
 
     @Override
     public boolean done() {
-        return fd.maxPerturb() <= 12;
+        return fd.ticks > 0 && fd.maxPerturb() <= doneThreshold;
     }
-
 }
@@ -36,11 +36,14 @@ import com.mastfrog.util.collections.IntSet;
 import java.awt.Dimension;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.IntConsumer;
 import javax.swing.JFrame;
@@ -59,7 +62,7 @@ class ForceDirected {
     double[] forces;
     double[] xs;
     double[] ys;
-    double[][] relatedness;
+    final RelatednessStore relatedness;
     final Random random;
     final int maxX;
     final int maxY;
@@ -76,6 +79,16 @@ class ForceDirected {
     }
 
     public ForceDirected(IntGraph graph, int maxX, int maxY, Random random) {
+        this(graph, maxX, maxY, random, RelatednessModel.SIMPLE_PATHS);
+    }
+
+    public ForceDirected(IntGraph graph, int maxX, int maxY, Random random,
+            RelatednessModel model) {
+        this(graph, maxX, maxY, random, model, RelatednessStore.DENSE);
+    }
+
+    public ForceDirected(IntGraph graph, int maxX, int maxY, Random random,
+            RelatednessModel model, RelatednessStore.Factory stores) {
         this.maxX = maxX;
         this.maxY = maxY;
         this.graph = graph;
@@ -88,12 +101,11 @@ class ForceDirected {
         forces = new double[graph.size()];
         xs = new double[graph.size()];
         ys = new double[graph.size()];
-        relatedness = new double[graph.size()][graph.size()];
+        relatedness = stores.create(graph.size());
         IntSet cards = initializePositions(maxX, maxY, graph);
-        computeRelatedness();
-        double[] minMax = initializeRelatedness();
-        minRel = minMax[0];
-        maxRel = minMax[1];
+        ParallelRelatedness.Range range = computeRelatedness(model, ForkJoinPool.commonPool());
+        minRel = range.min;
+        maxRel = range.max;
         int c = cards.size();
         int sz = Math.max(2, c / 3);
         Iterator<Integer> it = cards.iterator();
@@ -104,7 +116,6 @@ class ForceDirected {
             }
         }
 //        System.out.println("min relation " + minRel + " max " + maxRel);
-        System.out.println("MAX CARDS " + maxCardinalities);
     }
 
     private IntSet initializePositions(int maxX1, int maxY1, IntGraph graph1) {
@@ -120,21 +131,6 @@ class ForceDirected {
         return cards;
     }
 
-    private double[] initializeRelatedness() {
-        double maxRel = Double.MIN_VALUE;
-        double minRel = Double.MAX_VALUE;
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (i != j) {
-                    System.out.println("Related " + i + "," + j + "\t" + relatedness[i][j]);
-                    minRel = Math.min(minRel, relatedness[i][j]);
-                    maxRel = Math.max(maxRel, relatedness[i][j]);
-                }
-            }
-        }
-        return new double[]{minRel, maxRel};
-    }
-
     IntSet maxCardinalities = IntSet.create(100);
 
     static void sequential(int count, IntConsumer c) {
@@ -143,20 +139,20 @@ class ForceDirected {
         }
     }
 
-    private void computeRelatedness() {
-        sequential(graph.size(), a -> {
-            sequential(graph.size(), b -> {
-                if (a != b) {
-                    List<IP> p1 = undirectedPathsBetween(a, b);
-                    for (IP ip : p1) {
-                        int sz = ip.size();
-                        double val = sz - 1;
-                        double c = curve(val);
-                        relatedness[a][b] += c;
-                    }
-                }
-            });
-        });
+    private ParallelRelatedness.Range computeRelatedness(RelatednessModel model, ForkJoinPool pool) {
+        return new ParallelRelatedness(size, model.rows(this))
+                .compute(relatedness, pool);
+    }
+
+    void simplePathsRelatedness(int a, double[] into) {
+        for (int b = a + 1; b < size; b++) {
+            List<IP> p1 = undirectedPathsBetween(a, b);
+            for (IP ip : p1) {
+                int sz = ip.size();
+                double val = sz - 1;
+                into[b] += curve(val);
+            }
+        }
     }
 
     int size() {
@@ -165,7 +161,7 @@ class ForceDirected {
 
     static double CURVE_FACTOR = 1D;
 
-    private double curve(double depth) {
+    static double curve(double depth) {
         if (depth == 0) {
             return 1;
         }
@@ -239,8 +235,170 @@ class ForceDirected {
     }
 
     double ticks;
+    private boolean nearOnly;
+    private QuadTree quadTree;
+    private QuadTree.Query query;
+    private int[][] farPartners;
+    private int[] isolated;
+    // The farthest a node moved in the last tick - a guess at how far
+    // each will move during its turn in the next
+    private double lastTravel;
+
+    /**
+     * Apply the pairwise forces only between nodes near enough to act on
+     * each other, found with a quadtree rebuilt from the positions at the
+     * start of each tick, rather than visiting every pair. Every force in
+     * PairForces vanishes beyond PairForces.REACH except between nodes
+     * whose forces reach any distance - attracted pairs, hubs, leaves and
+     * their parents, and isolated nodes - which are found once, since
+     * neither relatedness nor cardinality change, and always visited. The
+     * search radius allows for how far nodes have moved since the tree was
+     * built, and is widened if a node moves further than guessed during its
+     * turn, so the pairs skipped are exactly those the exact loop would
+     * leave where they are, and the results are the same.
+     *
+     * @param nearOnly Whether to skip distant pairs
+     */
+    void setNearOnly(boolean nearOnly) {
+        this.nearOnly = nearOnly;
+    }
+
+    boolean isNearOnly() {
+        return nearOnly;
+    }
+
+    private boolean legacyForces;
+    private PairForces pairForces;
+    private final double[] isolatedPosition = new double[2];
+    private final double[] dampedPosition = new double[2];
+
+    /**
+     * Evaluate the exact pairwise forces by building a chain of Force
+     * objects for each pair, as originally written, rather than with the
+     * compiled pipelines - useful for comparing the two.
+     *
+     * @param legacy Whether to use Force objects
+     */
+    void setLegacyForces(boolean legacy) {
+        this.legacyForces = legacy;
+    }
+
+    boolean isLegacyForces() {
+        return legacyForces;
+    }
+
+    private ForkJoinPool synchronousPool;
+    private double[] nextXs;
+    private double[] nextYs;
+    private int[] leafParents;
+    private DampingFieldForce[] nodeDamping;
+
+    /**
+     * Compute each tick from a snapshot of the previous positions, writing
+     * new positions into a second pair of arrays which are swapped in when
+     * the tick completes, so that rows of the computation can be split
+     * across the passed pool. Results depend only on the previous state -
+     * not the order nodes are visited in or the number of threads - so a
+     * layout with a fixed seed is reproducible. Pass null to go back to
+     * updating positions in place.
+     *
+     * @param pool A pool, or null
+     */
+    void setSynchronous(ForkJoinPool pool) {
+        this.synchronousPool = pool;
+    }
+
+    boolean isSynchronous() {
+        return synchronousPool != null;
+    }
 
     void iterate() {
+        if (synchronousPool != null) {
+            iterateSynchronous();
+        } else if (nearOnly) {
+            iterateNear();
+        } else if (!legacyForces) {
+            iterateCompiled();
+        } else {
+            iterateForces();
+        }
+        restoreLocked();
+    }
+
+    /**
+     * The exact pairwise forces, evaluated with precompiled pipelines
+     * instead of allocating Force objects per pair.
+     */
+    void iterateCompiled() {
+        resetStats();
+        ticks++;
+        if (pairForces == null) {
+            pairForces = new PairForces();
+        }
+        int centerX = maxX / 2;
+        int centerY = maxY / 2;
+        for (int i = 0; i < size; i++) {
+            int icard = neighbors[i].cardinality();
+            for (int j = 0; j < size; j++) {
+                if (i != j) {
+                    compiledPair(i, icard, j, centerX, centerY);
+                }
+            }
+        }
+        applyEdgeForces();
+    }
+
+    /**
+     * Apply the forces between node i and node j in the exact loop.
+     */
+    private void compiledPair(int i, int icard, int j, int centerX, int centerY) {
+        double rel = relatedness.get(i, j);
+        int jcard = neighbors[j].cardinality();
+        CompiledForce toJ = null;
+        if (jcard == 0) {
+            Circle.positionOf((i * j) % 360, centerX, centerY, maxX,
+                    isolatedPosition, 0);
+            toJ = pairForces.isolated(isolatedPosition[0], isolatedPosition[1]);
+        } else if ((jcard == 1 && neighbors[j].get(i))
+                || (jcard == 2 && graph.parents(j).cardinality() == 1
+                && graph.parents(j).get(i))) {
+            toJ = pairForces.leaf(xs[i], ys[i]);
+        }
+        if (toJ != null) {
+            damping.apply(xs[j], ys[j], toJ, dampedPosition);
+            updateFrom(i, j, dampedPosition[0], dampedPosition[1]);
+            return;
+        }
+        int base = PairForces.BASE_NONE;
+        if (icard < jcard && (jcard - icard) > 3) {
+            if (rel > 0.1) {
+                base = neighbors[j].intersects(neighbors[i])
+                        ? PairForces.BASE_ATTRACT_ROTATE
+                        : PairForces.BASE_ATTRACT;
+            }
+        } else if (rel <= minRel * 3) {
+            base = PairForces.BASE_REPEL;
+        }
+        boolean hubs = maxCardinalities.contains(icard)
+                && maxCardinalities.contains(jcard);
+        CompiledForce toI = pairForces.pair(hubs, base, xs[j], ys[j], rel,
+                Math.max(60D, 10D * (icard + 1D)), minRel)
+                .apply(xs[i], ys[i]);
+        updateFrom(i, i, toI.x(), toI.y());
+    }
+
+    private void updateFrom(int ix, int target, double x, double y) {
+        // Stats are computed against the node exerting the force, as they
+        // always have been
+        if (!Double.isInfinite(x) && !Double.isNaN(x)) {
+            xs[target] = updatingX(ix, target, x);
+        }
+        if (!Double.isInfinite(y) && !Double.isNaN(y)) {
+            ys[target] = updatingY(ix, target, y);
+        }
+    }
+
+    void iterateForces() {
         resetStats();
         ticks++;
 //        BitSet done = new BitSet(size * size);
@@ -251,7 +409,7 @@ class ForceDirected {
                     continue;
                 }
                 int jx = j;
-                double rel = relatedness[ix][jx];
+                double rel = relatedness.get(ix, jx);
                 Force force = Force.NONE;
                 int icard = neighbors[i].cardinality();
                 int jcard = neighbors[j].cardinality();
@@ -273,10 +431,10 @@ class ForceDirected {
                     force = damping.setDelegate(force);
                     force.accept(xs[j], ys[j], (a, b) -> {
                         if (!Double.isInfinite(a) && !Double.isNaN(a)) {
-                            xs[jx] = updatingX(ix, a);
+                            xs[jx] = updatingX(ix, jx, a);
                         }
                         if (!Double.isInfinite(b) && !Double.isNaN(b)) {
-                            ys[jx] = updatingY(ix, b);
+                            ys[jx] = updatingY(ix, jx, b);
                         }
                     });
                     continue;
@@ -325,10 +483,10 @@ class ForceDirected {
 //                force = damping.setDelegate(force);
                 force.accept(xs[i], ys[i], (a, b) -> {
                     if (!Double.isInfinite(a) && !Double.isNaN(a)) {
-                        xs[ix] = updatingX(ix, a);
+                        xs[ix] = updatingX(ix, ix, a);
                     }
                     if (!Double.isInfinite(b) && !Double.isNaN(b)) {
-                        ys[ix] = updatingY(ix, b);
+                        ys[ix] = updatingY(ix, ix, b);
                     }
                 });
             }
@@ -336,6 +494,342 @@ class ForceDirected {
         applyEdgeForces();
     }
 
+    /**
+     * The exact pairwise forces, visiting only the pairs which can act on
+     * each other.
+     */
+    void iterateNear() {
+        resetStats();
+        ticks++;
+        if (pairForces == null) {
+            pairForces = new PairForces();
+        }
+        if (query == null) {
+            query = new QuadTree.Query();
+        }
+        buildQuadTree();
+        int centerX = maxX / 2;
+        int centerY = maxY / 2;
+        // How far any node has moved since the tree was built
+        double drift = 0;
+        for (int i = 0; i < size; i++) {
+            double startX = xs[i];
+            double startY = ys[i];
+            double allowance = lastTravel;
+            collectNear(query, i, startX, startY, drift + allowance);
+            int icard = neighbors[i].cardinality();
+            for (int c = 0; c < query.size(); c++) {
+                int j = query.get(c);
+                if (j != i) {
+                    compiledPair(i, icard, j, centerX, centerY);
+                }
+                drift = Math.max(drift, travel(j));
+                double moved = distance(startX, startY, xs[i], ys[i]);
+                if (moved > allowance) {
+                    // This node has moved far enough during its turn that
+                    // nodes not found may now be within reach of it
+                    allowance = moved * 2;
+                    collectNear(query, i, startX, startY, drift + allowance);
+                    c = query.indexOf(j);
+                }
+            }
+            drift = Math.max(drift, travel(i));
+            if (!isLocked(i)) {
+                // Pairs too far apart to move are not visited, so they do
+                // not include the node in the bounds
+                includeInBounds(xs[i], ys[i]);
+            }
+        }
+        lastTravel = drift;
+        applyEdgeForces();
+    }
+
+    private void buildQuadTree() {
+        if (quadTree == null) {
+            quadTree = new QuadTree(size);
+            farPartners = farPartners();
+        }
+        quadTree.build(xs, ys, size);
+    }
+
+    /**
+     * Find the nodes which may act on, or be acted on by, a node at the
+     * passed position, allowing for it or them having moved up to
+     * <code>slack</code> since the tree was built.
+     */
+    private void collectNear(QuadTree.Query into, int node, double x, double y,
+            double slack) {
+        into.clear();
+        quadTree.near(into, x, y, PairForces.REACH + slack);
+        for (int partner : farPartners[node]) {
+            into.add(partner);
+        }
+        for (int iso : isolated) {
+            into.add(iso);
+        }
+        into.sort();
+    }
+
+    private double travel(int node) {
+        return distance(quadTree.x(node), quadTree.y(node), xs[node], ys[node]);
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Find, for each node, the nodes it acts on or is acted on by at any
+     * distance, other than isolated nodes, which are collected separately
+     * since every node acts on them.
+     */
+    private int[][] farPartners() {
+        if (leafParents == null) {
+            leafParents = leafParents();
+        }
+        int[] cards = new int[size];
+        boolean[] hubs = new boolean[size];
+        int isolatedCount = 0;
+        for (int i = 0; i < size; i++) {
+            cards[i] = neighbors[i].cardinality();
+            hubs[i] = maxCardinalities.contains(cards[i]);
+            if (cards[i] == 0) {
+                isolatedCount++;
+            }
+        }
+        isolated = new int[isolatedCount];
+        int[][] result = new int[size][];
+        int[] partners = new int[size];
+        for (int i = 0, iso = 0; i < size; i++) {
+            if (cards[i] == 0) {
+                isolated[iso++] = i;
+            }
+            int count = 0;
+            for (int j = 0; j < size; j++) {
+                if (j == i) {
+                    continue;
+                }
+                if (leafParents[i] == j || leafParents[j] == i
+                        || (hubs[i] && hubs[j])
+                        || (cards[i] < cards[j] && (cards[j] - cards[i]) > 3
+                        && relatedness.get(i, j) > 0.1)) {
+                    partners[count++] = j;
+                }
+            }
+            result[i] = Arrays.copyOf(partners, count);
+        }
+        return result;
+    }
+
+    /**
+     * One tick in synchronous mode, visiting every pair or only those near
+     * enough to act on each other, as configured.
+     */
+    void iterateSynchronous() {
+        ticks++;
+        if (nextXs == null) {
+            nextXs = new double[size];
+            nextYs = new double[size];
+            nodeDamping = new DampingFieldForce[size];
+            for (int i = 0; i < size; i++) {
+                nodeDamping[i] = new DampingFieldForce(Force.NONE);
+            }
+            leafParents = leafParents();
+        }
+        if (nearOnly) {
+            buildQuadTree();
+        }
+        int perTask = Math.max(1, size / (synchronousPool.getParallelism() * 8));
+        TickStats stats = synchronousPool.invoke(new SynchronousRows(0, size, perTask,
+                nearOnly, new PairForces()));
+        double[] oldXs = xs;
+        double[] oldYs = ys;
+        xs = nextXs;
+        ys = nextYs;
+        nextXs = oldXs;
+        nextYs = oldYs;
+        currMinX = stats.minX;
+        currMaxX = stats.maxX;
+        currMinY = stats.minY;
+        currMaxY = stats.maxY;
+        maxPerturb = stats.maxPerturb;
+        if (nearOnly) {
+            lastTravel = 0;
+            for (int i = 0; i < size; i++) {
+                lastTravel = Math.max(lastTravel, travel(i));
+            }
+        }
+    }
+
+    /**
+     * Find, for each node, the node it is treated as a leaf of - its only
+     * neighbor, or the sole parent of a node with two neighbors - or -1.
+     */
+    private int[] leafParents() {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = -1;
+            int card = neighbors[i].cardinality();
+            if (card == 1) {
+                result[i] = neighbors[i].nextSetBit(0);
+            } else if (card == 2) {
+                Bits parents = graph.parents(i);
+                if (parents.cardinality() == 1) {
+                    result[i] = parents.nextSetBit(0);
+                }
+            }
+        }
+        return result;
+    }
+
+    static final class TickStats {
+
+        double minX = Double.MAX_VALUE;
+        double maxX = Double.MIN_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxY = Double.MIN_VALUE;
+        double maxPerturb;
+
+        void add(double oldX, double oldY, double x, double y) {
+            maxPerturb = Math.max(maxPerturb, Math.max(Math.abs(x - oldX), Math.abs(y - oldY)));
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+
+        TickStats merge(TickStats other) {
+            maxPerturb = Math.max(maxPerturb, other.maxPerturb);
+            minX = Math.min(minX, other.minX);
+            maxX = Math.max(maxX, other.maxX);
+            minY = Math.min(minY, other.minY);
+            maxY = Math.max(maxY, other.maxY);
+            return this;
+        }
+    }
+
+    /**
+     * Computes new positions for a range of nodes from the previous
+     * positions. Each row writes only its own node's position and damping
+     * state, so rows are independent of each other; forces the original
+     * loop applied from a parent to its leaf are applied here from the
+     * leaf's own row.
+     */
+    final class SynchronousRows extends RecursiveTask<TickStats> {
+
+        private final int start;
+        private final int end;
+        private final int perTask;
+        private final boolean nearOnly;
+        private final PairForces template;
+
+        SynchronousRows(int start, int end, int perTask, boolean nearOnly,
+                PairForces template) {
+            this.start = start;
+            this.end = end;
+            this.perTask = perTask;
+            this.nearOnly = nearOnly;
+            this.template = template;
+        }
+
+        @Override
+        protected TickStats compute() {
+            if (end - start <= perTask) {
+                TickStats stats = new TickStats();
+                exactRows(template.copy(), nearOnly ? new QuadTree.Query() : null, stats);
+                return stats;
+            }
+            int mid = start + ((end - start) / 2);
+            SynchronousRows top = new SynchronousRows(start, mid, perTask, nearOnly, template);
+            SynchronousRows bottom = new SynchronousRows(mid, end, perTask, nearOnly, template);
+            top.fork();
+            TickStats result = bottom.compute();
+            return result.merge(top.join());
+        }
+
+        private void exactRows(PairForces pairForces, QuadTree.Query near,
+                TickStats stats) {
+            double[] scratch = new double[2];
+            int centerX = maxX / 2;
+            int centerY = maxY / 2;
+            for (int r = start; r < end; r++) {
+                double px = xs[r];
+                double py = ys[r];
+                int rcard = neighbors[r].cardinality();
+                // Every node acts on an isolated one
+                boolean all = near == null || rcard == 0;
+                double allowance = lastTravel;
+                if (!all) {
+                    collectNear(near, r, xs[r], ys[r], allowance);
+                }
+                for (int c = 0; c < (all ? size : near.size()); c++) {
+                    if (!all && distance(xs[r], ys[r], px, py) > allowance) {
+                        // Moved far enough that nodes not found may now be
+                        // within reach; resume after the last one visited
+                        int last = near.get(c - 1);
+                        allowance = distance(xs[r], ys[r], px, py) * 2;
+                        collectNear(near, r, xs[r], ys[r], allowance);
+                        c = near.indexOf(last) + 1;
+                        if (c == near.size()) {
+                            break;
+                        }
+                    }
+                    int k = all ? c : near.get(c);
+                    if (k == r) {
+                        continue;
+                    }
+                    // Forces k exerts on r as a leaf or isolated node
+                    CompiledForce toR = null;
+                    if (rcard == 0) {
+                        Circle.positionOf((k * r) % 360, centerX, centerY, maxX, scratch, 0);
+                        toR = pairForces.isolated(scratch[0], scratch[1]);
+                    } else if (leafParents[r] == k) {
+                        toR = pairForces.leaf(xs[k], ys[k]);
+                    }
+                    if (toR != null) {
+                        nodeDamping[r].apply(px, py, toR, scratch);
+                        px = finiteOr(scratch[0], px);
+                        py = finiteOr(scratch[1], py);
+                    }
+                    // Forces k exerts on r as a peer, unless k is r's leaf
+                    // or isolated, in which case r only acts on k
+                    int kcard = neighbors[k].cardinality();
+                    if (kcard == 0 || leafParents[k] == r) {
+                        continue;
+                    }
+                    double rel = relatedness.get(r, k);
+                    int base = PairForces.BASE_NONE;
+                    if (rcard < kcard && (kcard - rcard) > 3) {
+                        if (rel > 0.1) {
+                            base = neighbors[k].intersects(neighbors[r])
+                                    ? PairForces.BASE_ATTRACT_ROTATE
+                                    : PairForces.BASE_ATTRACT;
+                        }
+                    } else if (rel <= minRel * 3) {
+                        base = PairForces.BASE_REPEL;
+                    }
+                    boolean hubs = maxCardinalities.contains(rcard)
+                            && maxCardinalities.contains(kcard);
+                    CompiledForce toPeer = pairForces.pair(hubs, base, xs[k], ys[k], rel,
+                            Math.max(60D, 10D * (rcard + 1D)), minRel).apply(px, py);
+                    px = finiteOr(toPeer.x(), px);
+                    py = finiteOr(toPeer.y(), py);
+                }
+                nextXs[r] = px;
+                nextYs[r] = py;
+                if (!isLocked(r)) {
+                    stats.add(xs[r], ys[r], px, py);
+                }
+            }
+        }
+    }
+
+    private static double finiteOr(double val, double fallback) {
+        return Double.isInfinite(val) || Double.isNaN(val) ? fallback : val;
+    }
+
     double currMinX = Double.MAX_VALUE;
     double currMaxX = Double.MIN_VALUE;
 
@@ -372,7 +866,15 @@ class ForceDirected {
         return maxPerturb;
     }
 
-    double updatingX(int ix, double newVal) {
+    /**
+     * Record the move of a node in the stats for this tick; locked nodes are
+     * put back by restoreLocked(), so their transient moves count toward
+     * neither the perturbation nor the bounds.
+     */
+    double updatingX(int ix, int target, double newVal) {
+        if (isLocked(target)) {
+            return newVal;
+        }
         double diff = Math.abs(newVal - xs[ix]);
         maxPerturb = Math.max(maxPerturb, diff);
         currMinX = Math.min(currMinX, newVal);
@@ -380,7 +882,10 @@ class ForceDirected {
         return newVal;
     }
 
-    double updatingY(int ix, double newVal) {
+    double updatingY(int ix, int target, double newVal) {
+        if (isLocked(target)) {
+            return newVal;
+        }
         double diff = Math.abs(newVal - ys[ix]);
         maxPerturb = Math.max(maxPerturb, diff);
         currMinY = Math.min(currMinY, newVal);
@@ -391,6 +896,90 @@ class ForceDirected {
     void resetStats() {
         currMinX = currMinY = Double.MAX_VALUE;
         currMaxX = currMaxY = Double.MIN_VALUE;
+        maxPerturb = 0;
+    }
+
+    /**
+     * Recompute the bounds of the layout from the current position of
+     * every node, rather than only those moved in the last tick.
+     */
+    void computeBounds() {
+        currMinX = currMinY = Double.MAX_VALUE;
+        currMaxX = currMaxY = Double.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            includeInBounds(xs[i], ys[i]);
+        }
+    }
+
+    private void includeInBounds(double x, double y) {
+        currMinX = Math.min(currMinX, x);
+        currMaxX = Math.max(currMaxX, x);
+        currMinY = Math.min(currMinY, y);
+        currMaxY = Math.max(currMaxY, y);
+    }
+
+    /**
+     * Scatter all unlocked nodes to new random positions and restart
+     * cooling, without recomputing relatedness.
+     */
+    void resetPositions() {
+        double centerX = maxX / 2;
+        double centerY = maxY / 2;
+        for (int i = 0; i < size; i++) {
+            if (!isLocked(i)) {
+                xs[i] = perturb(centerX, maxX);
+                ys[i] = perturb(centerY, maxY);
+            }
+        }
+        ticks = 0;
+        lastTravel = 0;
+        if (nodeDamping != null) {
+            for (int i = 0; i < size; i++) {
+                nodeDamping[i] = new DampingFieldForce(Force.NONE);
+            }
+        }
+        resetStats();
+        computeBounds();
+    }
+
+    private BitSet locked;
+    private double[] lockedXs;
+    private double[] lockedYs;
+
+    /**
+     * Pin a node at its current position, or release it.
+     *
+     * @param ix The node
+     * @param lock Whether it should be locked
+     */
+    void setLocked(int ix, boolean lock) {
+        if (lock) {
+            if (locked == null) {
+                locked = new BitSet(size);
+                lockedXs = new double[size];
+                lockedYs = new double[size];
+            }
+            locked.set(ix);
+            lockedXs[ix] = xs[ix];
+            lockedYs[ix] = ys[ix];
+        } else if (locked != null) {
+            locked.clear(ix);
+        }
+    }
+
+    boolean isLocked(int ix) {
+        return locked != null && locked.get(ix);
+    }
+
+    private void restoreLocked() {
+        if (locked == null) {
+            return;
+        }
+        for (int i = locked.nextSetBit(0); i >= 0; i = locked.nextSetBit(i + 1)) {
+            xs[i] = lockedXs[i];
+            ys[i] = lockedYs[i];
+            includeInBounds(xs[i], ys[i]);
+        }
     }
 
     Dimension currentSize() {
@@ -410,8 +999,21 @@ class ForceDirected {
     }
 
     public void setLocation(int ix, double x, double y) {
+        boolean onEdge = xs[ix] <= currMinX || xs[ix] >= currMaxX
+                || ys[ix] <= currMinY || ys[ix] >= currMaxY;
         xs[ix] = x;
         ys[ix] = y;
+        if (isLocked(ix)) {
+            lockedXs[ix] = x;
+            lockedYs[ix] = y;
+        }
+        // Keep the bounds xNorm() and yNorm() are relative to current; only
+        // a node that defined an edge can shrink them
+        if (onEdge) {
+            computeBounds();
+        } else {
+            includeInBounds(x, y);
+        }
     }
 
     public double x(int ix) {
@@ -422,7 +1024,7 @@ class ForceDirected {
         return ys[ix];
     }
 
-    static final DampingFieldForce damping = new DampingFieldForce(Force.NONE);
+    final DampingFieldForce damping = new DampingFieldForce(Force.NONE);
 
     static double[] intersection(double x1, double y1, double x2, double y2,
             double x3, double y3, double x4, double y4) {
@@ -267,7 +267,7 @@ final class Gui extends JComponent implements ActionListener, MouseListener, Mou
 
         g.setColor(Color.RED);
         g2.setStroke(new BasicStroke(2.5F));;
-        g2.draw(ForceDirected.damping.circle());
+        g2.draw(d.damping.circle());
         g2.setStroke(new BasicStroke(1.5F));;
         g2.setFont(getFont());
         //            g.translate(512, 512);
@@ -0,0 +1,156 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import static com.mastfrog.alternate.layouts.CompiledForce.attraction;
+import static com.mastfrog.alternate.layouts.CompiledForce.constant;
+import static com.mastfrog.alternate.layouts.CompiledForce.repulsion;
+import static com.mastfrog.alternate.layouts.CompiledForce.rotation;
+import static com.mastfrog.alternate.layouts.CompiledForce.slot;
+import static com.mastfrog.alternate.layouts.CompiledForce.toward;
+
+/**
+ * The force compositions ForceDirected applies between pairs of nodes,
+ * compiled once so that an iteration does not allocate a chain of Force
+ * objects and lambdas for each of the N<sup>2</sup> pairs it visits.
+ *
+ * @author Tim Boudreau
+ */
+final class PairForces {
+
+    static final int CENTER_X = 0;
+    static final int CENTER_Y = 1;
+    static final int RELATEDNESS = 2;
+    static final int HORIZON = 3;
+    static final int MIN_RELATEDNESS = 4;
+    static final int MULTIPLIER = 5;
+    private static final int SLOTS = 6;
+
+    static final int BASE_NONE = 0;
+    static final int BASE_ATTRACT = 1;
+    static final int BASE_ATTRACT_ROTATE = 2;
+    static final int BASE_REPEL = 3;
+    private static final int BASES = 4;
+
+    /**
+     * The farthest apart two nodes can be for pair() to move one of them,
+     * unless the pair is attracted, or both are hubs - those forces reach
+     * any distance.
+     */
+    static final double REACH = 80;
+
+    private final CompiledForce[] pairs;
+    private final CompiledForce leaf;
+    private final CompiledForce isolated;
+
+    PairForces() {
+        pairs = new CompiledForce[BASES * 2];
+        for (int base = 0; base < BASES; base++) {
+            pairs[base] = repulsion(slot(CENTER_X), slot(CENTER_Y), constant(25))
+                    .or(base(base)).compile(SLOTS);
+            // High cardinality nodes push each other apart hard
+            pairs[BASES + base] = toward(slot(CENTER_X), slot(CENTER_Y),
+                    slot(MULTIPLIER), constant(500), true)
+                    .and(base(base)).compile(SLOTS);
+        }
+        leaf = attraction(slot(CENTER_X), slot(CENTER_Y), constant(60),
+                constant(1), constant(0)).compile(SLOTS);
+        isolated = toward(slot(CENTER_X), slot(CENTER_Y), constant(-1),
+                constant(Double.POSITIVE_INFINITY), false).compile(SLOTS);
+    }
+
+    private PairForces(PairForces orig) {
+        pairs = new CompiledForce[orig.pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = orig.pairs[i].copy();
+        }
+        leaf = orig.leaf.copy();
+        isolated = orig.isolated.copy();
+    }
+
+    private static CompiledForce.Expression base(int base) {
+        switch (base) {
+            case BASE_NONE:
+                return CompiledForce.NONE;
+            case BASE_ATTRACT:
+                return attraction(slot(CENTER_X), slot(CENTER_Y), slot(HORIZON),
+                        slot(RELATEDNESS), slot(MIN_RELATEDNESS));
+            case BASE_ATTRACT_ROTATE:
+                return base(BASE_ATTRACT).and(rotation(slot(CENTER_X),
+                        slot(CENTER_Y), constant(-1), constant(360)));
+            case BASE_REPEL:
+                return repulsion(slot(CENTER_X), slot(CENTER_Y), constant(REACH));
+            default:
+                throw new IllegalArgumentException("Unknown base " + base);
+        }
+    }
+
+    /**
+     * Get an independent copy for use on another thread.
+     *
+     * @return A copy
+     */
+    PairForces copy() {
+        return new PairForces(this);
+    }
+
+    /**
+     * Get the forces one node exerts on another.
+     *
+     * @param hubs If both nodes are of maximal cardinality
+     * @param base One of the BASE_* constants
+     * @param centerX The x coordinate of the node exerting the force
+     * @param centerY The y coordinate of the node exerting the force
+     * @param relatedness The relatedness of the pair
+     * @param horizon The radius within which attraction turns to repulsion
+     * @param minRelatedness The minimum relatedness of any pair
+     * @return A compiled force with its slots populated
+     */
+    CompiledForce pair(boolean hubs, int base, double centerX, double centerY,
+            double relatedness, double horizon, double minRelatedness) {
+        return pairs[hubs ? BASES + base : base]
+                .set(CENTER_X, centerX)
+                .set(CENTER_Y, centerY)
+                .set(RELATEDNESS, relatedness)
+                .set(HORIZON, horizon)
+                .set(MIN_RELATEDNESS, minRelatedness)
+                .set(MULTIPLIER, -(relatedness > 1 ? relatedness * 4 : 4 * (1D / relatedness)));
+    }
+
+    /**
+     * Get the force pulling a leaf node toward its parent.
+     */
+    CompiledForce leaf(double parentX, double parentY) {
+        return leaf.set(CENTER_X, parentX).set(CENTER_Y, parentY);
+    }
+
+    /**
+     * Get the force pushing a node with no edges away from a point.
+     */
+    CompiledForce isolated(double awayFromX, double awayFromY) {
+        return isolated.set(CENTER_X, awayFromX).set(CENTER_Y, awayFromY);
+    }
+}
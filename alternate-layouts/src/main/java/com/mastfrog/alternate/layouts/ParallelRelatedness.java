@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the all-pairs relatedness matrix used by ForceDirected on a
+ * ForkJoinPool, splitting the rows of the matrix into blocks. Relatedness is
+ * symmetric, so only the upper triangle is computed - each unordered pair
+ * once - and stored in a RelatednessStore.
+ *
+ * @author Tim Boudreau
+ */
+final class ParallelRelatedness {
+
+    private final int size;
+    private final RowComputation rows;
+    private final int rowsPerTask;
+
+    ParallelRelatedness(int size, RowComputation rows) {
+        this(size, rows, 0);
+    }
+
+    ParallelRelatedness(int size, RowComputation rows, int rowsPerTask) {
+        this.size = size;
+        this.rows = rows;
+        this.rowsPerTask = rowsPerTask;
+    }
+
+    /**
+     * Computes one row of the upper triangle of the relatedness matrix.
+     */
+    interface RowComputation {
+
+        /**
+         * Compute the relatedness of <code>row</code> to every node with a
+         * higher index, storing the result for node <i>n</i> in
+         * <code>into[n]</code>. Entries at or below <code>row</code> must not
+         * be relied on. Will be called concurrently for different rows.
+         *
+         * @param row The row
+         * @param into An array the size of the graph, zeroed above the row
+         */
+        void computeRow(int row, double[] into);
+    }
+
+    /**
+     * Fill the passed store, returning the minimum and maximum relatedness
+     * of any pair of distinct nodes.
+     *
+     * @param into A store for the graph's size
+     * @param pool The pool to compute in
+     * @return The range of values
+     */
+    Range compute(RelatednessStore into, ForkJoinPool pool) {
+        if (size < 2) {
+            return new Range();
+        }
+        int perTask = rowsPerTask > 0 ? rowsPerTask
+                : Math.max(1, size / (pool.getParallelism() * 8));
+        return pool.invoke(new RowBlock(0, size - 1, perTask, into));
+    }
+
+    static final class Range {
+
+        double min = Double.MAX_VALUE;
+        double max = Double.MIN_VALUE;
+
+        void add(double val) {
+            min = Math.min(min, val);
+            max = Math.max(max, val);
+        }
+
+        Range merge(Range other) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            return this;
+        }
+    }
+
+    final class RowBlock extends RecursiveTask<Range> {
+
+        private final int start;
+        private final int end;
+        private final int perTask;
+        private final RelatednessStore into;
+
+        RowBlock(int start, int end, int perTask, RelatednessStore into) {
+            this.start = start;
+            this.end = end;
+            this.perTask = perTask;
+            this.into = into;
+        }
+
+        @Override
+        protected Range compute() {
+            if (end - start <= perTask) {
+                return computeDirectly();
+            }
+            // Rows near the top of the triangle are longer, so split on
+            // the midpoint of the remaining work rather than of the rows
+            int mid = balancedMidpoint();
+            RowBlock top = new RowBlock(start, mid, perTask, into);
+            RowBlock bottom = new RowBlock(mid, end, perTask, into);
+            top.fork();
+            Range result = bottom.compute();
+            return result.merge(top.join());
+        }
+
+        private int balancedMidpoint() {
+            long total = cells(start, end);
+            long half = total / 2;
+            long sum = 0;
+            for (int row = start; row < end - 1; row++) {
+                sum += size - row - 1;
+                if (sum >= half) {
+                    return Math.max(start + 1, row + 1);
+                }
+            }
+            return start + ((end - start) / 2);
+        }
+
+        private long cells(int from, int to) {
+            long result = 0;
+            for (int row = from; row < to; row++) {
+                result += size - row - 1;
+            }
+            return result;
+        }
+
+        private Range computeDirectly() {
+            Range range = new Range();
+            double[] scratch = new double[size];
+            for (int a = start; a < end; a++) {
+                for (int b = a + 1; b < size; b++) {
+                    scratch[b] = 0;
+                }
+                rows.computeRow(a, scratch);
+                for (int b = a + 1; b < size; b++) {
+                    double val = scratch[b];
+                    into.set(a, b, val);
+                    range.add(val);
+                }
+            }
+            return range;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import java.util.Arrays;
+
+/**
+ * A quadtree over node positions, used to find the nodes near enough to a
+ * node to exert a force on it without visiting every other node. Cells are
+ * stored in parallel arrays which are reused when the tree is rebuilt on
+ * each iteration, so rebuilding does not allocate once the arrays have
+ * grown to fit the graph.
+ *
+ * @author Tim Boudreau
+ */
+final class QuadTree {
+
+    private static final int EMPTY = -1;
+    // Coincident points would subdivide forever; past this depth they
+    // simply share a cell
+    private static final int MAX_DEPTH = 48;
+    private double[] centerX;
+    private double[] centerY;
+    private double[] half;
+    private int[] firstChild;
+    private int[] body;
+    // Further nodes sharing a cell at maximum depth, by node
+    private int[] nextBody;
+    private double[] xs;
+    private double[] ys;
+    private int count;
+
+    QuadTree(int expectedSize) {
+        allocate(Math.max(16, expectedSize * 2));
+        nextBody = new int[expectedSize];
+        xs = new double[expectedSize];
+        ys = new double[expectedSize];
+    }
+
+    /**
+     * Scratch space for a query of the tree, and the nodes it found; once
+     * built, the tree may be queried concurrently by threads which each use
+     * their own Query.
+     */
+    static final class Query {
+
+        private int[] cells = new int[64];
+        private int[] found = new int[64];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int node) {
+            if (size == found.length) {
+                found = Arrays.copyOf(found, size * 2);
+            }
+            found[size++] = node;
+        }
+
+        /**
+         * Sort the nodes found into ascending order, dropping duplicates,
+         * so they are visited in the same order as a loop over all nodes.
+         */
+        void sort() {
+            Arrays.sort(found, 0, size);
+            int last = 0;
+            for (int i = 1; i < size; i++) {
+                if (found[i] != found[last]) {
+                    found[++last] = found[i];
+                }
+            }
+            size = Math.min(size, last + 1);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return found[index];
+        }
+
+        /**
+         * Find a node in a sorted query.
+         */
+        int indexOf(int node) {
+            return Arrays.binarySearch(found, 0, size, node);
+        }
+    }
+
+    private void allocate(int cells) {
+        centerX = new double[cells];
+        centerY = new double[cells];
+        half = new double[cells];
+        firstChild = new int[cells];
+        body = new int[cells];
+    }
+
+    private void ensureCapacity(int cells) {
+        if (cells > body.length) {
+            int newSize = Math.max(cells, body.length + (body.length / 2));
+            centerX = Arrays.copyOf(centerX, newSize);
+            centerY = Arrays.copyOf(centerY, newSize);
+            half = Arrays.copyOf(half, newSize);
+            firstChild = Arrays.copyOf(firstChild, newSize);
+            body = Arrays.copyOf(body, newSize);
+        }
+    }
+
+    /**
+     * Rebuild the tree from the first <code>size</code> positions in the
+     * passed arrays, which are copied, so queries see the positions as they
+     * were when the tree was built.
+     *
+     * @param xs X coordinates
+     * @param ys Y coordinates
+     * @param size The number of nodes
+     * @return this
+     */
+    QuadTree build(double[] xs, double[] ys, int size) {
+        count = 0;
+        if (size == 0) {
+            return this;
+        }
+        if (this.xs.length < size) {
+            this.xs = new double[size];
+            this.ys = new double[size];
+            nextBody = new int[size];
+        }
+        System.arraycopy(xs, 0, this.xs, 0, size);
+        System.arraycopy(ys, 0, this.ys, 0, size);
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        double extent = Math.max(1, Math.max(maxX - minX, maxY - minY));
+        newCell((minX + maxX) / 2, (minY + maxY) / 2, (extent / 2) + 1);
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+        return this;
+    }
+
+    /**
+     * The x coordinate of a node when the tree was built.
+     */
+    double x(int node) {
+        return xs[node];
+    }
+
+    /**
+     * The y coordinate of a node when the tree was built.
+     */
+    double y(int node) {
+        return ys[node];
+    }
+
+    private int newCell(double cx, double cy, double halfSize) {
+        ensureCapacity(count + 1);
+        int cell = count++;
+        centerX[cell] = cx;
+        centerY[cell] = cy;
+        half[cell] = halfSize;
+        firstChild[cell] = EMPTY;
+        body[cell] = EMPTY;
+        return cell;
+    }
+
+    private void subdivide(int cell) {
+        double h = half[cell] / 2;
+        double cx = centerX[cell];
+        double cy = centerY[cell];
+        int first = newCell(cx - h, cy - h, h);
+        newCell(cx + h, cy - h, h);
+        newCell(cx - h, cy + h, h);
+        newCell(cx + h, cy + h, h);
+        firstChild[cell] = first;
+    }
+
+    private int childFor(int cell, double x, double y) {
+        int result = firstChild[cell];
+        if (x >= centerX[cell]) {
+            result += 1;
+        }
+        if (y >= centerY[cell]) {
+            result += 2;
+        }
+        return result;
+    }
+
+    private void insert(int node) {
+        double x = xs[node];
+        double y = ys[node];
+        nextBody[node] = EMPTY;
+        int cell = 0;
+        for (int depth = 0;; depth++) {
+            if (firstChild[cell] != EMPTY) {
+                cell = childFor(cell, x, y);
+                continue;
+            }
+            int existing = body[cell];
+            if (existing == EMPTY) {
+                body[cell] = node;
+                return;
+            }
+            if (depth >= MAX_DEPTH) {
+                nextBody[node] = existing;
+                body[cell] = node;
+                return;
+            }
+            // Push the occupant down into a child and keep descending
+            body[cell] = EMPTY;
+            subdivide(cell);
+            body[childFor(cell, xs[existing], ys[existing])] = existing;
+            cell = childFor(cell, x, y);
+        }
+    }
+
+    /**
+     * Add every node which was within <code>radius</code> of a point when
+     * the tree was built to a query, skipping cells which lie entirely
+     * outside it.
+     *
+     * @param query The query, which is not cleared first
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param radius The radius
+     */
+    void near(Query query, double x, double y, double radius) {
+        if (count == 0) {
+            return;
+        }
+        double radiusSquared = radius * radius;
+        int[] stack = query.cells;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            double h = half[cell];
+            double dx = Math.max(0, Math.abs(x - centerX[cell]) - h);
+            double dy = Math.max(0, Math.abs(y - centerY[cell]) - h);
+            if (dx * dx + dy * dy > radiusSquared) {
+                continue;
+            }
+            int first = firstChild[cell];
+            if (first == EMPTY) {
+                for (int b = body[cell]; b != EMPTY; b = nextBody[b]) {
+                    double bx = xs[b] - x;
+                    double by = ys[b] - y;
+                    if (bx * bx + by * by <= radiusSquared) {
+                        query.add(b);
+                    }
+                }
+            } else {
+                if (top + 4 > stack.length) {
+                    stack = query.cells = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = first;
+                stack[top++] = first + 1;
+                stack[top++] = first + 2;
+                stack[top++] = first + 3;
+            }
+        }
+    }
+}
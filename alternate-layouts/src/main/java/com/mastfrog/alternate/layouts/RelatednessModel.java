@@ -0,0 +1,199 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import com.mastfrog.bits.Bits;
+import java.util.Arrays;
+
+/**
+ * Strategy for computing how related each pair of nodes is, which
+ * ForceDirected uses to decide which nodes attract and repel each other.
+ * Models compute a row of the (symmetric) relatedness matrix at a time, and
+ * must be safe to call concurrently for different rows.
+ *
+ * @author Tim Boudreau
+ */
+interface RelatednessModel {
+
+    /**
+     * The original model: the sum, over every simple path between two nodes,
+     * of the inverse of the path's length. Exponential on graphs with cycles.
+     */
+    public static final RelatednessModel SIMPLE_PATHS = new SimplePaths();
+
+    ParallelRelatedness.RowComputation rows(ForceDirected layout);
+
+    /**
+     * The number of shortest paths between two nodes, weighted by the
+     * inverse of their length, found by breadth-first search to a maximum
+     * depth; pairs further apart than that are unrelated. O(N * E) time.
+     *
+     * @param maxDepth The maximum path length considered
+     * @return A model
+     */
+    static RelatednessModel shortestPaths(int maxDepth) {
+        return new ShortestPaths(maxDepth);
+    }
+
+    /**
+     * A truncated Katz index - the number of walks of each length up to
+     * <code>maxDepth</code> between two nodes, with walks of length
+     * <i>n</i> weighted by <code>attenuation<sup>n - 1</sup></code>, so a
+     * direct edge scores 1 as it does with simple paths. O(N * E * depth)
+     * time.
+     *
+     * @param maxDepth The longest walk counted
+     * @param attenuation The per-step attenuation, between 0 and 1
+     * @return A model
+     */
+    static RelatednessModel katz(int maxDepth, double attenuation) {
+        return new Katz(maxDepth, attenuation);
+    }
+
+    static final class SimplePaths implements RelatednessModel {
+
+        @Override
+        public ParallelRelatedness.RowComputation rows(ForceDirected layout) {
+            return layout::simplePathsRelatedness;
+        }
+
+        @Override
+        public String toString() {
+            return "simple-paths";
+        }
+    }
+
+    static final class ShortestPaths implements RelatednessModel {
+
+        private final int maxDepth;
+
+        ShortestPaths(int maxDepth) {
+            if (maxDepth < 1) {
+                throw new IllegalArgumentException("Depth must be at least 1: " + maxDepth);
+            }
+            this.maxDepth = maxDepth;
+        }
+
+        @Override
+        public ParallelRelatedness.RowComputation rows(ForceDirected layout) {
+            Bits[] neighbors = layout.neighbors;
+            int size = layout.size();
+            return (row, into) -> {
+                int[] depths = new int[size];
+                double[] counts = new double[size];
+                int[] queue = new int[size];
+                depths[row] = 1;
+                counts[row] = 1;
+                queue[0] = row;
+                int head = 0;
+                int tail = 1;
+                while (head < tail) {
+                    int node = queue[head++];
+                    int depth = depths[node];
+                    if (depth > maxDepth) {
+                        break;
+                    }
+                    Bits adjacent = neighbors[node];
+                    for (int n = adjacent.nextSetBit(0); n >= 0; n = adjacent.nextSetBit(n + 1)) {
+                        if (depths[n] == 0) {
+                            depths[n] = depth + 1;
+                            queue[tail++] = n;
+                        }
+                        if (depths[n] == depth + 1) {
+                            counts[n] += counts[node];
+                        }
+                    }
+                }
+                // depths are offset by one so zero can mean unvisited
+                for (int b = row + 1; b < size; b++) {
+                    if (depths[b] > 1 && depths[b] <= maxDepth + 1) {
+                        into[b] = counts[b] * ForceDirected.curve(depths[b] - 1);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "shortest-paths(" + maxDepth + ")";
+        }
+    }
+
+    static final class Katz implements RelatednessModel {
+
+        private final int maxDepth;
+        private final double attenuation;
+
+        Katz(int maxDepth, double attenuation) {
+            if (maxDepth < 1) {
+                throw new IllegalArgumentException("Depth must be at least 1: " + maxDepth);
+            }
+            if (attenuation <= 0 || attenuation >= 1) {
+                throw new IllegalArgumentException("Attenuation must be between "
+                        + "0 and 1 exclusive: " + attenuation);
+            }
+            this.maxDepth = maxDepth;
+            this.attenuation = attenuation;
+        }
+
+        @Override
+        public ParallelRelatedness.RowComputation rows(ForceDirected layout) {
+            Bits[] neighbors = layout.neighbors;
+            int size = layout.size();
+            return (row, into) -> {
+                double[] walks = new double[size];
+                double[] next = new double[size];
+                walks[row] = 1;
+                double weight = 1;
+                for (int depth = 1; depth <= maxDepth; depth++) {
+                    for (int node = 0; node < size; node++) {
+                        double count = walks[node];
+                        if (count == 0) {
+                            continue;
+                        }
+                        Bits adjacent = neighbors[node];
+                        for (int n = adjacent.nextSetBit(0); n >= 0; n = adjacent.nextSetBit(n + 1)) {
+                            next[n] += count;
+                        }
+                    }
+                    for (int b = row + 1; b < size; b++) {
+                        into[b] += weight * next[b];
+                    }
+                    double[] swap = walks;
+                    walks = next;
+                    next = swap;
+                    Arrays.fill(next, 0);
+                    weight *= attenuation;
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "katz(" + maxDepth + ", " + attenuation + ")";
+        }
+    }
+}
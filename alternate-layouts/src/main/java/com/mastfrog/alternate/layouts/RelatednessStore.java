@@ -0,0 +1,265 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Storage for the symmetric relatedness matrix ForceDirected computes on
+ * startup. The matrix is N<sup>2</sup>, so the representation determines how
+ * large a graph can be laid out at all; implementations only store the upper
+ * triangle, and the diagonal is always zero.
+ * <p>
+ * Values are set once per pair, for <code>a &lt; b</code>, by the parallel
+ * relatedness engine - concurrently for different values of <code>a</code>,
+ * but in ascending order of <code>b</code> for any one row.
+ * </p>
+ *
+ * @author Tim Boudreau
+ */
+interface RelatednessStore {
+
+    /**
+     * One full double[] row per node - 8N<sup>2</sup> bytes; the default, and
+     * the only store which keeps full double precision.
+     */
+    public static final Factory DENSE = Dense::new;
+    /**
+     * Packed upper triangle of floats on the Java heap - 2N<sup>2</sup>
+     * bytes, up to about 65,000 nodes. Values are rounded to float, so
+     * layouts will differ slightly from those computed with DENSE.
+     */
+    public static final Factory PACKED = Packed::new;
+    /**
+     * Packed upper triangle of floats in direct byte buffers, keeping the
+     * matrix off the Java heap.
+     */
+    public static final Factory PACKED_OFF_HEAP = OffHeap::new;
+
+    /**
+     * Stores only values at or above a threshold - anything less reads as
+     * zero. Memory is proportional to the number of related pairs, so this
+     * is the only option for very large, loosely connected graphs.
+     *
+     * @param threshold The minimum value to store
+     * @return A factory
+     */
+    static Factory sparse(double threshold) {
+        return size -> new Sparse(size, threshold);
+    }
+
+    double get(int a, int b);
+
+    void set(int a, int b, double value);
+
+    int size();
+
+    interface Factory {
+
+        RelatednessStore create(int size);
+    }
+
+    static long triangleIndex(int size, int a, int b) {
+        if (a > b) {
+            int hold = a;
+            a = b;
+            b = hold;
+        }
+        return ((long) a * ((2L * size) - a - 1)) / 2 + (b - a - 1);
+    }
+
+    static long triangleSize(int size) {
+        return ((long) size * (size - 1)) / 2;
+    }
+
+    static final class Dense implements RelatednessStore {
+
+        private final double[][] values;
+
+        Dense(int size) {
+            values = new double[size][size];
+        }
+
+        @Override
+        public double get(int a, int b) {
+            return values[a][b];
+        }
+
+        @Override
+        public void set(int a, int b, double value) {
+            values[a][b] = value;
+            values[b][a] = value;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    static final class Packed implements RelatednessStore {
+
+        private final int size;
+        private final float[] values;
+
+        Packed(int size) {
+            long cells = triangleSize(size);
+            if (cells > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many nodes for an "
+                        + "on-heap packed store: " + size);
+            }
+            this.size = size;
+            values = new float[(int) cells];
+        }
+
+        @Override
+        public double get(int a, int b) {
+            if (a == b) {
+                return 0;
+            }
+            return values[(int) triangleIndex(size, a, b)];
+        }
+
+        @Override
+        public void set(int a, int b, double value) {
+            values[(int) triangleIndex(size, a, b)] = (float) value;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    static final class OffHeap implements RelatednessStore {
+
+        // 2^27 floats - 512Mb per buffer
+        private static final int SEGMENT_SHIFT = 27;
+        private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+        private final int size;
+        private final FloatBuffer[] segments;
+
+        OffHeap(int size) {
+            this.size = size;
+            long cells = triangleSize(size);
+            int count = (int) ((cells + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new FloatBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long remaining = cells - ((long) i << SEGMENT_SHIFT);
+                int floats = (int) Math.min(remaining, 1L << SEGMENT_SHIFT);
+                segments[i] = ByteBuffer.allocateDirect(floats * Float.BYTES)
+                        .order(ByteOrder.nativeOrder()).asFloatBuffer();
+            }
+        }
+
+        @Override
+        public double get(int a, int b) {
+            if (a == b) {
+                return 0;
+            }
+            long ix = triangleIndex(size, a, b);
+            return segments[(int) (ix >>> SEGMENT_SHIFT)].get((int) (ix & SEGMENT_MASK));
+        }
+
+        @Override
+        public void set(int a, int b, double value) {
+            long ix = triangleIndex(size, a, b);
+            segments[(int) (ix >>> SEGMENT_SHIFT)].put((int) (ix & SEGMENT_MASK), (float) value);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    static final class Sparse implements RelatednessStore {
+
+        private static final int[] NO_COLUMNS = new int[0];
+        private static final float[] NO_VALUES = new float[0];
+        private final double threshold;
+        private final int[][] columns;
+        private final float[][] values;
+        private final int[] counts;
+
+        Sparse(int size, double threshold) {
+            this.threshold = threshold;
+            columns = new int[size][];
+            values = new float[size][];
+            counts = new int[size];
+            Arrays.fill(columns, NO_COLUMNS);
+            Arrays.fill(values, NO_VALUES);
+        }
+
+        @Override
+        public double get(int a, int b) {
+            if (a == b) {
+                return 0;
+            }
+            int row = Math.min(a, b);
+            int ix = Arrays.binarySearch(columns[row], 0, counts[row], Math.max(a, b));
+            return ix < 0 ? 0 : values[row][ix];
+        }
+
+        @Override
+        public void set(int a, int b, double value) {
+            if (value == 0 || Math.abs(value) < threshold) {
+                return;
+            }
+            int row = Math.min(a, b);
+            int col = Math.max(a, b);
+            int count = counts[row];
+            int[] cols = columns[row];
+            float[] vals = values[row];
+            if (count == cols.length) {
+                int newLength = Math.max(4, count + (count / 2));
+                cols = columns[row] = Arrays.copyOf(cols, newLength);
+                vals = values[row] = Arrays.copyOf(vals, newLength);
+            }
+            int ix = count == 0 || cols[count - 1] < col ? count
+                    : Arrays.binarySearch(cols, 0, count, col);
+            if (ix >= 0 && ix < count) {
+                vals[ix] = (float) value;
+                return;
+            } else if (ix < 0) {
+                ix = -ix - 1;
+                System.arraycopy(cols, ix, cols, ix + 1, count - ix);
+                System.arraycopy(vals, ix, vals, ix + 1, count - ix);
+            }
+            cols[ix] = col;
+            vals[ix] = (float) value;
+            counts[row]++;
+        }
+
+        @Override
+        public int size() {
+            return counts.length;
+        }
+    }
+}
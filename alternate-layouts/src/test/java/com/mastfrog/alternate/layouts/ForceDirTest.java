@@ -0,0 +1,81 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+import java.awt.geom.Point2D;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class ForceDirTest {
+
+    @Test
+    public void testLockedNodesDoNotKeepLayoutRunning() {
+        Graph<String, String> graph = ring(40);
+        ForceDir<String, String> layout = ForceDir.shortestPaths(graph, 3);
+        for (String v : graph.getVertices()) {
+            layout.lock(v, true);
+        }
+        layout.step();
+        assertTrue("Only locked nodes, but not done", layout.done());
+    }
+
+    @Test
+    public void testSetLocationUpdatesNormalizedBounds() {
+        Graph<String, String> graph = ring(40);
+        ForceDir<String, String> layout = ForceDir.katz(graph, 4, 0.5);
+        for (int i = 0; i < 5; i++) {
+            layout.step();
+        }
+        layout.setLocation("0", new Point2D.Double(-500, -700));
+        Point2D moved = layout.apply("0");
+        assertEquals(0, moved.getX(), 0.000001);
+        assertEquals(0, moved.getY(), 0.000001);
+        for (String v : graph.getVertices()) {
+            Point2D p = layout.apply(v);
+            assertTrue(v + " at " + p, p.getX() >= 0 && p.getY() >= 0);
+        }
+    }
+
+    private static Graph<String, String> ring(int size) {
+        Graph<String, String> graph = new DirectedSparseGraph<>();
+        for (int i = 0; i < size; i++) {
+            graph.addEdge(i + "-" + (i + 1) % size, Integer.toString(i),
+                    Integer.toString((i + 1) % size));
+            if (i % 3 == 0) {
+                graph.addEdge(i + "-" + (i + 7) % size, Integer.toString(i),
+                        Integer.toString((i + 7) % size));
+            }
+        }
+        return graph;
+    }
+}
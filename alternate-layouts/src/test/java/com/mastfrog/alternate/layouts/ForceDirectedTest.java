@@ -0,0 +1,158 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import com.mastfrog.graph.IntGraph;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class ForceDirectedTest {
+
+    private static final int ITERATIONS = 40;
+
+    @Test
+    public void testCompiledForcesMatchLegacyForces() {
+        IntGraph graph = TestGraphs.randomGraph(150, 75, 42);
+        ForceDirected legacy = layout(graph);
+        legacy.setLegacyForces(true);
+        ForceDirected compiled = layout(graph);
+        assertTrue(legacy.isLegacyForces());
+        double[] initialXs = xs(compiled);
+        for (int i = 0; i < ITERATIONS; i++) {
+            legacy.iterate();
+            compiled.iterate();
+        }
+        assertFalse("Layout did not move any node",
+                Arrays.equals(initialXs, xs(compiled)));
+        assertSamePositions("legacy vs. compiled", legacy, compiled);
+    }
+
+    @Test
+    public void testNearOnlyMatchesExactForces() {
+        IntGraph graph = TestGraphs.randomGraph(300, 150, 23);
+        ForceDirected exact = layout(graph);
+        ForceDirected near = layout(graph);
+        near.setNearOnly(true);
+        assertTrue(near.isNearOnly());
+        for (int i = 0; i < ITERATIONS; i++) {
+            exact.iterate();
+            near.iterate();
+        }
+        assertSamePositions("exact vs. near only", exact, near);
+    }
+
+    @Test
+    public void testSynchronousNearOnlyMatchesExactForces() throws InterruptedException {
+        IntGraph graph = TestGraphs.randomGraph(300, 150, 23);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ForceDirected exact = layout(graph);
+            exact.setSynchronous(pool);
+            ForceDirected near = layout(graph);
+            near.setNearOnly(true);
+            near.setSynchronous(pool);
+            for (int i = 0; i < ITERATIONS; i++) {
+                exact.iterate();
+                near.iterate();
+            }
+            assertSamePositions("synchronous exact vs. near only", exact, near);
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testSynchronousExactIsIndependentOfThreadCount() throws InterruptedException {
+        assertThreadCountIndependent(false);
+    }
+
+    @Test
+    public void testSynchronousNearOnlyIsIndependentOfThreadCount() throws InterruptedException {
+        assertThreadCountIndependent(true);
+    }
+
+    private void assertThreadCountIndependent(boolean nearOnly) throws InterruptedException {
+        IntGraph graph = TestGraphs.randomGraph(300, 150, 23);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+        try {
+            ForceDirected one = layout(graph);
+            one.setNearOnly(nearOnly);
+            one.setSynchronous(single);
+            ForceDirected four = layout(graph);
+            four.setNearOnly(nearOnly);
+            four.setSynchronous(many);
+            double[] initialXs = xs(four);
+            for (int i = 0; i < ITERATIONS; i++) {
+                one.iterate();
+                four.iterate();
+            }
+            assertFalse("Layout did not move any node",
+                    Arrays.equals(initialXs, xs(four)));
+            assertSamePositions("1 vs. 4 threads, near only " + nearOnly, one, four);
+        } finally {
+            single.shutdown();
+            many.shutdown();
+            single.awaitTermination(10, TimeUnit.SECONDS);
+            many.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    static ForceDirected layout(IntGraph graph) {
+        return new ForceDirected(graph, 1536, 1024, new Random(5),
+                RelatednessModel.shortestPaths(3));
+    }
+
+    static double[] xs(ForceDirected layout) {
+        double[] result = new double[layout.size];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = layout.x(i);
+        }
+        return result;
+    }
+
+    static void assertSamePositions(String msg, ForceDirected expected, ForceDirected got) {
+        assertEquals(expected.size, got.size);
+        for (int i = 0; i < expected.size; i++) {
+            // Bit-identical, not merely close
+            assertEquals(msg + ": x of " + i, Double.doubleToLongBits(expected.x(i)),
+                    Double.doubleToLongBits(got.x(i)));
+            assertEquals(msg + ": y of " + i, Double.doubleToLongBits(expected.y(i)),
+                    Double.doubleToLongBits(got.y(i)));
+        }
+    }
+}
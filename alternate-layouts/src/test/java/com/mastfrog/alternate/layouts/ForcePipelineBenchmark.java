@@ -0,0 +1,166 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the per-pair forces in ForceDirected, composed of Force
+ * objects for every pair as originally written vs. evaluated through the
+ * precompiled pipelines in PairForces, both in isolation and as whole
+ * iterations; run with <code>mvn test-compile exec:exec
+ * -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath com.mastfrog.alternate.layouts.ForcePipelineBenchmark"</code>
+ * (add <code>-prof gc</code> to the JMH options to see allocation rates).
+ *
+ * @author Tim Boudreau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForcePipelineBenchmark {
+
+    private static final int PAIRS = 4096;
+
+    @Param({"100", "300"})
+    public int nodes;
+
+    private final double[] centerX = new double[PAIRS];
+    private final double[] centerY = new double[PAIRS];
+    private final double[] pointX = new double[PAIRS];
+    private final double[] pointY = new double[PAIRS];
+    private final double[] rel = new double[PAIRS];
+    private final int[] base = new int[PAIRS];
+    private final boolean[] hubs = new boolean[PAIRS];
+    private final double[] out = new double[2];
+    private PairForces pairForces;
+    private ForceDirected legacy;
+    private ForceDirected compiled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rnd = new Random(23);
+        for (int i = 0; i < PAIRS; i++) {
+            centerX[i] = rnd.nextDouble() * 1000;
+            centerY[i] = rnd.nextDouble() * 1000;
+            pointX[i] = centerX[i] + (rnd.nextDouble() - 0.5) * 400;
+            pointY[i] = centerY[i] + (rnd.nextDouble() - 0.5) * 400;
+            rel[i] = rnd.nextDouble() * 2;
+            base[i] = rnd.nextInt(4);
+            hubs[i] = rnd.nextInt(8) == 0;
+        }
+        pairForces = new PairForces();
+        legacy = new ForceDirected(TestGraphs.randomGraph(nodes, nodes / 2, 42),
+                1536, 1024, new Random(5));
+        legacy.setLegacyForces(true);
+        compiled = new ForceDirected(TestGraphs.randomGraph(nodes, nodes / 2, 42),
+                1536, 1024, new Random(5));
+    }
+
+    @Benchmark
+    public void pairsLegacy(Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) {
+            double cx = centerX[i];
+            double cy = centerY[i];
+            double r = rel[i];
+            Force force = Force.NONE;
+            switch (base[i]) {
+                case PairForces.BASE_ATTRACT:
+                    force = force.and(new Attraction(cx, cy, 60, r, 0.05));
+                    break;
+                case PairForces.BASE_ATTRACT_ROTATE:
+                    force = force.and(new Attraction(cx, cy, 60, r, 0.05))
+                            .and(new RotationalForce(cx, cy, Strength.INVERSE_SQUARE.negate(), 360));
+                    break;
+                case PairForces.BASE_REPEL:
+                    force = new ForceDirected.Repul(cx, cy, 80).and(force);
+                    break;
+                default:
+                    break;
+            }
+            if (hubs[i]) {
+                force = new SimpleForce(cx, cy, Strength.LINEAR.multiply(r > 1 ? r * 4 : 4 * (1D / r))
+                        .negate().bound(500)).and(force);
+            } else {
+                force = new ForceDirected.Repul(cx, cy, 25).or(force);
+            }
+            force.accept(pointX[i], pointY[i], (a, b) -> {
+                out[0] = a;
+                out[1] = b;
+            });
+            bh.consume(out[0]);
+            bh.consume(out[1]);
+        }
+    }
+
+    @Benchmark
+    public void pairsCompiled(Blackhole bh) {
+        for (int i = 0; i < PAIRS; i++) {
+            CompiledForce force = pairForces.pair(hubs[i], base[i], centerX[i],
+                    centerY[i], rel[i], 60, 0.05).apply(pointX[i], pointY[i]);
+            bh.consume(force.x());
+            bh.consume(force.y());
+        }
+    }
+
+    @Benchmark
+    public double iterateLegacy() {
+        legacy.iterate();
+        return legacy.maxPerturb();
+    }
+
+    @Benchmark
+    public double iterateCompiled() {
+        compiled.iterate();
+        return compiled.maxPerturb();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ForcePipelineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
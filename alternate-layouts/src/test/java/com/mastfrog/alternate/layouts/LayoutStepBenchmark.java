@@ -0,0 +1,154 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import com.mastfrog.graph.IntGraph;
+import com.mastfrog.graph.ObjectGraph;
+import com.mastfrog.graph.jung.adapter.GraphAdapter;
+import edu.uci.ics.jung.algorithms.layout.AbstractLayout;
+import edu.uci.ics.jung.algorithms.layout.FRLayout;
+import edu.uci.ics.jung.algorithms.layout.KKLayout;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.algorithms.util.IterativeContext;
+import edu.uci.ics.jung.graph.Graph;
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of one step() of ForceDir, driven as a JUNG layout over a
+ * GraphAdapter-wrapped IntGraph the way JungScene drives it, reading every
+ * position after each step, against KKLayout and FRLayout on the same
+ * graphs; run with <code>mvn test-compile exec:exec
+ * -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath com.mastfrog.alternate.layouts.LayoutStepBenchmark"</code>.
+ *
+ * @author Tim Boudreau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutStepBenchmark {
+
+    private static final Dimension SIZE = new Dimension(1536, 1024);
+
+    @Param({"100", "500"})
+    public int nodes;
+
+    @Param({"forceDir", "forceDirNearOnly", "forceDirNearOnlyPooled", "kk", "fr"})
+    public String layout;
+
+    private Layout<String, ?> steps;
+    private IterativeContext iterative;
+    private List<String> vertices;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        IntGraph ig = TestGraphs.randomGraph(nodes, nodes / 2, 42);
+        List<String> names = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            names.add("n" + i);
+        }
+        ObjectGraph<String> og = ig.toObjectGraph(names);
+        create(og, GraphAdapter.wrap(og));
+        vertices = new ArrayList<>(steps.getGraph().getVertices());
+    }
+
+    private <E> void create(ObjectGraph<String> og, Graph<String, E> graph) {
+        // Exhaustive path enumeration is exponential on graphs with cycles,
+        // so use shortest paths for relatedness
+        RelatednessModel model = RelatednessModel.shortestPaths(4);
+        switch (layout) {
+            case "forceDir":
+                use(new ForceDir<>(graph, og, model));
+                break;
+            case "forceDirNearOnly":
+                use(new ForceDir<>(graph, og, model).setNearOnly(true));
+                break;
+            case "forceDirNearOnlyPooled":
+                use(new ForceDir<>(graph, og, model).setNearOnly(true)
+                        .setThreadPool(ForkJoinPool.commonPool()));
+                break;
+            case "kk":
+                use(sized(new KKLayout<>(graph)));
+                break;
+            case "fr":
+                use(sized(new FRLayout<>(graph)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown layout " + layout);
+        }
+    }
+
+    private static <L extends AbstractLayout<String, ?>> L sized(L layout) {
+        layout.setSize(SIZE);
+        return layout;
+    }
+
+    private <L extends Layout<String, ?> & IterativeContext> void use(L layout) {
+        steps = layout;
+        iterative = layout;
+    }
+
+    @Benchmark
+    public double step() {
+        iterative.step();
+        // Read every position as JungScene does after each step
+        double result = 0;
+        for (String v : vertices) {
+            Point2D p = steps.apply(v);
+            result += p.getX() + p.getY();
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LayoutStepBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,122 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import com.mastfrog.graph.IntGraph;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the relatedness computation ForceDirected performs on
+ * startup, for each relatedness model, on pools of increasing parallelism;
+ * run with <code>mvn test-compile exec:exec
+ * -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath com.mastfrog.alternate.layouts.RelatednessBenchmark"</code>.
+ *
+ * @author Tim Boudreau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelatednessBenchmark {
+
+    @Param({"threeHubsConnectedMore", "sensorConfigLanguageRules"})
+    public String graph;
+
+    @Param({"simplePaths", "shortestPaths", "katz"})
+    public String model;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private ForceDirected layout;
+    private ParallelRelatedness relatedness;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        IntGraph g = "threeHubsConnectedMore".equals(graph)
+                ? ForceDirected.threeHubsConnectedMore()
+                : ForceDirected.sensorConfigLanguageRules();
+        // The layout is only needed for its graph; shortest paths keeps
+        // constructing it cheap
+        layout = new ForceDirected(g, 1536, 1024, new Random(1),
+                RelatednessModel.shortestPaths(8));
+        relatedness = new ParallelRelatedness(layout.size(), model().rows(layout));
+        pool = new ForkJoinPool(threads);
+    }
+
+    private RelatednessModel model() {
+        switch (model) {
+            case "simplePaths":
+                return RelatednessModel.SIMPLE_PATHS;
+            case "shortestPaths":
+                return RelatednessModel.shortestPaths(8);
+            case "katz":
+                return RelatednessModel.katz(4, 0.5);
+            default:
+                throw new IllegalArgumentException("Unknown model " + model);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public RelatednessStore compute() {
+        RelatednessStore into = RelatednessStore.DENSE.create(layout.size());
+        relatedness.compute(into, pool);
+        return into;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RelatednessBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
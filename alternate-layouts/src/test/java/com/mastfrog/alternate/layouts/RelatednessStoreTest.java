@@ -0,0 +1,158 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class RelatednessStoreTest {
+
+    @Test
+    public void testTriangleIndexCoversTriangleExactlyOnce() {
+        for (int size = 1; size < 60; size++) {
+            long cells = RelatednessStore.triangleSize(size);
+            BitSet seen = new BitSet();
+            for (int a = 0; a < size; a++) {
+                for (int b = a + 1; b < size; b++) {
+                    long ix = RelatednessStore.triangleIndex(size, a, b);
+                    assertEquals(ix, RelatednessStore.triangleIndex(size, b, a));
+                    assertFalse(size + ": " + a + "," + b + " -> " + ix, ix < 0 || ix >= cells);
+                    assertFalse("Duplicate index " + ix + " for " + a + "," + b
+                            + " in " + size, seen.get((int) ix));
+                    seen.set((int) ix);
+                }
+            }
+            assertEquals(cells, seen.cardinality());
+        }
+    }
+
+    @Test
+    public void testPackedMatchesDense() {
+        assertMatchesDense(RelatednessStore.PACKED, 0);
+    }
+
+    @Test
+    public void testOffHeapMatchesDense() {
+        assertMatchesDense(RelatednessStore.PACKED_OFF_HEAP, 0);
+    }
+
+    @Test
+    public void testSparseMatchesDenseAboveThreshold() {
+        assertMatchesDense(RelatednessStore.sparse(0.25), 0.25);
+    }
+
+    @Test
+    public void testSparseOutOfOrderWritesAndOverwrites() {
+        RelatednessStore sparse = RelatednessStore.sparse(0.1).create(20);
+        RelatednessStore dense = RelatednessStore.DENSE.create(20);
+        Random rnd = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            int a = rnd.nextInt(20);
+            int b = rnd.nextInt(20);
+            if (a == b) {
+                continue;
+            }
+            double val = floatValue(0.2 + rnd.nextDouble());
+            sparse.set(a, b, val);
+            dense.set(a, b, val);
+        }
+        assertSameContents(dense, sparse, 0.1);
+    }
+
+    @Test
+    public void testParallelEngineFillsEveryStoreTheSame() {
+        int size = 300;
+        ParallelRelatedness rel = new ParallelRelatedness(size, (row, into) -> {
+            for (int b = row + 1; b < size; b++) {
+                into[b] = floatValue(((row * 31 + b * 17) % 23) / 11D);
+            }
+        }, 3);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RelatednessStore dense = RelatednessStore.DENSE.create(size);
+            rel.compute(dense, pool);
+            for (RelatednessStore.Factory f : new RelatednessStore.Factory[]{
+                RelatednessStore.PACKED, RelatednessStore.PACKED_OFF_HEAP}) {
+                RelatednessStore store = f.create(size);
+                rel.compute(store, pool);
+                assertSameContents(dense, store, 0);
+            }
+            RelatednessStore sparse = RelatednessStore.sparse(0.5).create(size);
+            rel.compute(sparse, pool);
+            assertSameContents(dense, sparse, 0.5);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertMatchesDense(RelatednessStore.Factory factory, double threshold) {
+        for (int size : new int[]{1, 2, 3, 17, 128}) {
+            RelatednessStore dense = RelatednessStore.DENSE.create(size);
+            RelatednessStore store = factory.create(size);
+            assertEquals(size, store.size());
+            Random rnd = new Random(size);
+            // Rows in ascending column order, as the relatedness engine
+            // writes them
+            for (int a = 0; a < size; a++) {
+                for (int b = a + 1; b < size; b++) {
+                    double val = floatValue(rnd.nextDouble() * 2);
+                    dense.set(a, b, val);
+                    store.set(a, b, val);
+                }
+            }
+            assertSameContents(dense, store, threshold);
+        }
+    }
+
+    private static void assertSameContents(RelatednessStore dense, RelatednessStore store,
+            double threshold) {
+        int size = dense.size();
+        for (int a = 0; a < size; a++) {
+            assertEquals(0D, store.get(a, a), 0);
+            for (int b = 0; b < size; b++) {
+                double expect = dense.get(a, b);
+                if (Math.abs(expect) < threshold) {
+                    expect = 0;
+                }
+                assertEquals(a + "," + b, expect, store.get(a, b), 0);
+                assertEquals(store.get(a, b), store.get(b, a), 0);
+            }
+        }
+    }
+
+    private static double floatValue(double val) {
+        // The compact stores hold floats; use values which survive that
+        return (float) val;
+    }
+}
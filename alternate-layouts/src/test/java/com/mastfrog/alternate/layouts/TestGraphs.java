@@ -0,0 +1,64 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.mastfrog.alternate.layouts;
+
+import com.mastfrog.graph.IntGraph;
+import java.util.Random;
+
+/**
+ * Graphs shared by tests and benchmarks.
+ *
+ * @author Tim Boudreau
+ */
+final class TestGraphs {
+
+    private TestGraphs() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Create a random spanning tree over the passed number of nodes, plus
+     * some extra random edges to create cycles.
+     *
+     * @param nodes The number of nodes
+     * @param extraEdges The number of edges beyond those of the tree
+     * @param seed The random seed
+     * @return A graph
+     */
+    static IntGraph randomGraph(int nodes, int extraEdges, long seed) {
+        Random rnd = new Random(seed);
+        int[][] pairs = new int[(nodes - 1) + extraEdges][];
+        for (int i = 1; i < nodes; i++) {
+            pairs[i - 1] = new int[]{rnd.nextInt(i), i};
+        }
+        for (int i = 0; i < extraEdges; i++) {
+            int a = rnd.nextInt(nodes);
+            int b = rnd.nextInt(nodes);
+            pairs[nodes - 1 + i] = new int[]{a, a == b ? (b + 1) % nodes : b};
+        }
+        return ForceDirected.fromPairs(pairs);
+    }
+}
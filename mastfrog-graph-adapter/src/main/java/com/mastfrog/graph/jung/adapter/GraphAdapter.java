@@ -27,18 +27,20 @@ package com.mastfrog.graph.jung.adapter;
 
 import com.mastfrog.abstractions.Wrapper;
 import com.mastfrog.abstractions.list.IndexedResolvable;
+import com.mastfrog.bits.Bits;
 import com.mastfrog.graph.IntGraph;
 import com.mastfrog.graph.ObjectGraph;
-import com.mastfrog.graph.ObjectGraphVisitor;
 import edu.uci.ics.jung.graph.DirectedGraph;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.util.EdgeType;
 import edu.uci.ics.jung.graph.util.Pair;
+import java.util.AbstractCollection;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.function.BiFunction;
 
@@ -342,6 +344,80 @@ public final class GraphAdapter {
         }
     }
 
+    /**
+     * Compact edge list read directly from the adjacency bits of an IntGraph,
+     * as parallel arrays of source and destination node indices.
+     */
+    static final class EdgeArray {
+
+        private final int[] sources;
+        private final int[] dests;
+
+        private EdgeArray(int[] sources, int[] dests) {
+            this.sources = sources;
+            this.dests = dests;
+        }
+
+        static EdgeArray create(IntGraph ig, boolean directed) {
+            int count = edgeCount(ig, directed);
+            int[] sources = new int[count];
+            int[] dests = new int[count];
+            int cursor = 0;
+            for (int i = 0; i < ig.size(); i++) {
+                Bits children = ig.children(i);
+                for (int j = children.nextSetBit(0); j >= 0; j = children.nextSetBit(j + 1)) {
+                    if (directed || !isMirror(ig, i, j)) {
+                        sources[cursor] = i;
+                        dests[cursor++] = j;
+                    }
+                }
+            }
+            return new EdgeArray(sources, dests);
+        }
+
+        /**
+         * Count edges from bit cardinalities without creating any edge
+         * objects; in an undirected graph, a pair of nodes which are each
+         * other's children contributes a single edge.
+         *
+         * @param ig A graph
+         * @param directed Whether mirror-image edges are distinct
+         * @return The edge count
+         */
+        static int edgeCount(IntGraph ig, boolean directed) {
+            int result = 0;
+            for (int i = 0; i < ig.size(); i++) {
+                Bits children = ig.children(i);
+                result += children.cardinality();
+                if (!directed) {
+                    Bits parents = ig.parents(i);
+                    for (int j = children.nextSetBit(i + 1); j >= 0; j = children.nextSetBit(j + 1)) {
+                        if (parents.get(j)) {
+                            result--;
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static boolean isMirror(IntGraph ig, int src, int dest) {
+            return dest < src && ig.children(dest).get(src);
+        }
+
+        int size() {
+            return sources.length;
+        }
+
+        int source(int index) {
+            return sources[index];
+        }
+
+        int dest(int index) {
+            return dests[index];
+        }
+    }
+
     static class WrappedObjectGraph<V, E> implements Graph<V, E>, Wrapper<ObjectGraph<?>> {
 
         private final ObjectGraph<V> graph;
@@ -360,9 +436,7 @@ public final class GraphAdapter {
         @Override
         public <F> F find(Class<? super F> what) {
             if (IntGraph.class == what) {
-                IntGraph[] ig = new IntGraph[1];
-                graph.toIntGraph((ir, g) -> ig[0] = g);
-                return (F) what.cast(ig[0]);
+                return (F) what.cast(intGraph());
             }
             return Wrapper.super.find(what);
         }
@@ -480,32 +554,91 @@ public final class GraphAdapter {
             }
         }
 
-        private Set<E> edges;
+        private Collection<E> edges;
+
+        /**
+         * Whether mirror-image edges should be reported as distinct edges;
+         * the undirected wrapper collapses them, since an undirected edge
+         * factory will treat them as equal anyway.
+         *
+         * @return true if the graph is directed
+         */
+        boolean isDirected() {
+            return false;
+        }
+
+        private IntGraph intGraph;
+
+        IntGraph intGraph() {
+            if (intGraph == null) {
+                IntGraph[] ig = new IntGraph[1];
+                graph.toIntGraph((ir, g) -> ig[0] = g);
+                intGraph = ig[0];
+            }
+            return intGraph;
+        }
 
         @Override
         public Collection<E> getEdges() {
             if (edges != null) {
                 return edges;
             }
-            Set<E> result = new HashSet<>();
-            graph.walk(new ObjectGraphVisitor<V>() {
-                LinkedList<V> stack = new LinkedList<>();
-
-                @Override
-                public void enterNode(V node, int depth) {
-                    if (stack.size() > 0) {
-                        V curr = stack.peek();
-                        result.add(edgeFactory.apply(curr, node));
+            EdgeArray array = EdgeArray.create(intGraph(), isDirected());
+            edgeCount = array.size();
+            return edges = new EdgesView(array);
+        }
+
+        /**
+         * Lazy, immutable view over an EdgeArray - edge objects are only
+         * created as they are iterated.
+         */
+        final class EdgesView extends AbstractCollection<E> {
+
+            private final EdgeArray array;
+
+            EdgesView(EdgeArray array) {
+                this.array = array;
+            }
+
+            @Override
+            public Iterator<E> iterator() {
+                return new Iterator<E>() {
+                    private int cursor;
+
+                    @Override
+                    public boolean hasNext() {
+                        return cursor < array.size();
                     }
-                    stack.push(node);
-                }
 
-                @Override
-                public void exitNode(V node, int depth) {
-                    stack.pop();
+                    @Override
+                    public E next() {
+                        if (cursor >= array.size()) {
+                            throw new NoSuchElementException();
+                        }
+                        int ix = cursor++;
+                        return edgeFactory.apply(graph.toNode(array.source(ix)),
+                                graph.toNode(array.dest(ix)));
+                    }
+                };
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                if (o == null) {
+                    return false;
                 }
-            });
-            return edges = Collections.unmodifiableSet(result);
+                try {
+                    return containsEdge((E) o);
+                } catch (ClassCastException ex) {
+                    return false;
+                }
+            }
+
+            @Override
+            public int size() {
+                return array.size();
+            }
         }
 
         private Collection<V> allVertices;
@@ -541,7 +674,7 @@ public final class GraphAdapter {
             if (edgeCount >= 0) {
                 return edgeCount;
             }
-            return edgeCount = getEdges().size();
+            return edgeCount = EdgeArray.edgeCount(intGraph(), isDirected());
         }
 
         @Override
@@ -667,7 +800,7 @@ public final class GraphAdapter {
 
         @Override
         public int getEdgeCount(EdgeType edge_type) {
-            return getEdges().size();
+            return getEdgeCount();
         }
 
     }
@@ -678,6 +811,11 @@ public final class GraphAdapter {
             super(graph, edgeFactory);
         }
 
+        @Override
+        boolean isDirected() {
+            return true;
+        }
+
         @Override
         public EdgeType getEdgeType(E edge) {
             return EdgeType.DIRECTED;
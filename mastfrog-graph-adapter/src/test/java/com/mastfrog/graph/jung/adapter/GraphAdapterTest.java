@@ -35,7 +35,12 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.openide.util.Exceptions;
 
@@ -71,6 +76,78 @@ public class GraphAdapterTest {
         Thread.currentThread().join();
     }
 
+    @Test
+    public void testEdgesMatchAdjacency() {
+        IntGraph ig = sensorConfigLanguageRules();
+        List<Integer> ixs = new ArrayList<>();
+        int expected = 0;
+        for (int i = 0; i < ig.size(); i++) {
+            ixs.add(i);
+            expected += ig.children(i).cardinality();
+        }
+        ObjectGraph<Integer> og = ig.toObjectGraph(ixs);
+        Graph<Integer, ? extends GraphAdapter.Edge<Integer>> g = GraphAdapter.wrap(og, true);
+        assertEquals(expected, g.getEdgeCount());
+        Collection<? extends GraphAdapter.Edge<Integer>> edges = g.getEdges();
+        assertEquals(expected, edges.size());
+        Set<GraphAdapter.Edge<Integer>> seen = new HashSet<>();
+        for (GraphAdapter.Edge<Integer> e : edges) {
+            assertTrue(e.toString(), ig.children(e.source()).get(e.dest()));
+            assertTrue(e.toString(), seen.add(e));
+            assertTrue(e.toString(), edges.contains(e));
+        }
+        assertEquals(expected, seen.size());
+    }
+
+    @Test
+    public void testUndirectedEdgesCollapseMirrors() {
+        IntGraph ig = mutualPairAndSelfLoop();
+        List<Integer> ixs = new ArrayList<>();
+        for (int i = 0; i < ig.size(); i++) {
+            ixs.add(i);
+        }
+        ObjectGraph<Integer> og = ig.toObjectGraph(ixs);
+        assertEquals(6, GraphAdapter.wrap(og, true).getEdgeCount());
+        Graph<Integer, ? extends GraphAdapter.Edge<Integer>> g = GraphAdapter.wrap(og, false);
+        // 0:1 and 1:0 are one edge; the 3:3 loop is counted once
+        assertEquals(5, g.getEdgeCount());
+        Collection<? extends GraphAdapter.Edge<Integer>> edges = g.getEdges();
+        assertEquals(5, edges.size());
+        Set<GraphAdapter.Edge<Integer>> seen = new HashSet<>();
+        int loops = 0;
+        int mutual = 0;
+        for (GraphAdapter.Edge<Integer> e : edges) {
+            int src = e.source();
+            int dest = e.dest();
+            assertTrue(e.toString(), ig.children(src).get(dest));
+            assertTrue(e.toString(), seen.add(e));
+            assertTrue(e.toString(), edges.contains(e));
+            if (src == dest) {
+                loops++;
+            } else if (ig.children(dest).get(src)) {
+                mutual++;
+            }
+        }
+        assertEquals(1, loops);
+        assertEquals(1, mutual);
+        assertEquals(g.getEdgeCount(), seen.size());
+    }
+
+    static IntGraph mutualPairAndSelfLoop() {
+        BitSet[] parents = new BitSet[5];
+        BitSet[] children = new BitSet[5];
+        for (int i = 0; i < 5; i++) {
+            parents[i] = new BitSet();
+            children[i] = new BitSet();
+        }
+        int[][] edges = {{0, 1}, {1, 0}, {1, 2}, {2, 3}, {3, 3}, {4, 2}};
+        for (int[] edge : edges) {
+            children[edge[0]].set(edge[1]);
+            parents[edge[1]].set(edge[0]);
+        }
+        return IntGraph.create(parents, children);
+    }
+
     static class IXA implements IndexedResolvable<Integer> {
 
         private final int size;
@@ -91,10 +91,10 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
     static final Color RUNTIME = new Color(191, 255, 191);
     static final Color TEST = new Color(202, 151, 151);
 
-    private static final int LEFT_TOP = 1;
-    private static final int LEFT_BOTTOM = 2;
-    private static final int RIGHT_TOP = 3;
-    private static final int RIGHT_BOTTOM = 4;
+    static final int LEFT_TOP = 1;
+    static final int LEFT_BOTTOM = 2;
+    static final int RIGHT_TOP = 3;
+    static final int RIGHT_BOTTOM = 4;
 
     private static final @StaticResource String LOCK_ICON = "com/timboudreau/maven/dependency/graph/fork/lock.png";
     private static final @StaticResource String LOCK_BROKEN_ICON = "com/timboudreau/maven/dependency/graph/fork/lock-broken.png";
@@ -108,6 +108,8 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
 
     private Timer hoverTimer;
     private Color hoverBorderC;
+    private Color hoverBorderFaintC;
+    private Color hoverBorderFaintestC;
 
     private LabelWidget artifactW, versionW;
     private Widget contentW;
@@ -116,6 +118,8 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
     private int paintState = EdgeWidget.REGULAR;
 
     private Font origFont;
+    // The font last set on the labels
+    private Font currentFont;
     private Color origForeground;
 
     private String tooltipText;
@@ -137,6 +141,8 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
         if (hoverBorderC == null) {
             hoverBorderC = Color.GRAY;
         }
+        hoverBorderFaintC = new Color(hoverBorderC.getRed(), hoverBorderC.getGreen(), hoverBorderC.getBlue(), 150);
+        hoverBorderFaintestC = new Color(hoverBorderC.getRed(), hoverBorderC.getGreen(), hoverBorderC.getBlue(), 75);
     }
 
     @Messages({
@@ -193,8 +199,8 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
         setToolTipText(tooltipText);
     }
 
-    void highlightText(String searchTerm) {
-        if (searchTerm != null && node.getArtifact().getArtifact().getArtifactId().contains(searchTerm)) {
+    void highlightText(boolean matched) {
+        if (matched) {
             artifactW.setBackground(HIGHTLIGHT);
             artifactW.setOpaque(true);
             setPaintState(EdgeWidget.REGULAR);
@@ -233,6 +239,8 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
             return;
         }
         this.paintState = state;
+        ((DependencyGraphScene) getScene()).paintStateChanged(this,
+                state != EdgeWidget.DISABLED && state != EdgeWidget.GRAYED);
 
         updatePaintContent();
     }
@@ -278,7 +286,7 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
         contentW = new LevelOfDetailsWidget(scene, 0.05, 0.1, Double.MAX_VALUE, Double.MAX_VALUE);
         contentW.setBorder(BorderFactory.createLineBorder(10));
         contentW.setLayout(LayoutFactory.createVerticalFlowLayout(LayoutFactory.SerialAlignment.JUSTIFY, 1));
-        artifactW = new LabelWidget(scene);
+        artifactW = new MeasuredLabelWidget(scene);
         artifactW.setLabel(artifact.getArtifactId() + "  ");
         if (node.isRoot()) {
             Font defF = scene.getDefaultFont();
@@ -288,7 +296,7 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
         Widget versionDetW = new LevelOfDetailsWidget(scene, 0.5, 0.7, Double.MAX_VALUE, Double.MAX_VALUE);
         versionDetW.setLayout(LayoutFactory.createHorizontalFlowLayout(LayoutFactory.SerialAlignment.CENTER, 2));
         contentW.addChild(versionDetW);
-        versionW = new LabelWidget(scene);
+        versionW = new MeasuredLabelWidget(scene);
         versionW.setLabel(artifact.getVersion());
         int mngState = node.getManagedState();
         if (mngState != ArtifactGraphNode.UNMANAGED) {
@@ -345,11 +353,11 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
         Rectangle bounds = getClientArea();
 
         if (node.isRoot()) {
-            paintBottom(g, bounds, ROOT, Color.WHITE, bounds.height / 2);
+            BadgeSprites.paint(g, bounds, getScene().getZoomFactor(), true, null, null, false);
         } else {
+            Color scopeC = null;
             if (scopes != null && scopes.size() > 0 && scopes.contains(node.getArtifact().getArtifact().getScope())) {
-                Color scopeC = colorForScope(node.getArtifact().getArtifact().getScope());
-                paintCorner(RIGHT_BOTTOM, g, bounds, scopeC, Color.WHITE, bounds.width / 2, bounds.height / 2);
+                scopeC = colorForScope(node.getArtifact().getArtifact().getScope());
             }
             int conflictType = node.getConflictType();
             Color leftTopC = null;
@@ -363,21 +371,16 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
                     leftTopC = WARNING;
                 }
             }
-            if (leftTopC != null) {
-                paintCorner(LEFT_TOP, g, bounds, leftTopC, Color.WHITE, bounds.width, bounds.height / 2);
-            }
-
-            if (node.getPrimaryLevel() == 1) {
-                paintBottom(g, bounds, DIRECTS, Color.WHITE, bounds.height / 6);
-            }
+            BadgeSprites.paint(g, bounds, getScene().getZoomFactor(), false,
+                    scopeC, leftTopC, node.getPrimaryLevel() == 1);
         }
 
         if (getState().isHovered() || getState().isSelected()) {
-            paintHover(g, bounds, hoverBorderC, getState().isSelected());
+            paintHover(g, bounds, getState().isSelected());
         }
     }
 
-    private static void paintCorner (int corner, Graphics2D g, Rectangle bounds,
+    static void paintCorner (int corner, Graphics2D g, Rectangle bounds,
             Color c1, Color c2, int x, int y) {
         double h = y*y + x*x;
         int gradX = (int)(y*y*x / h);
@@ -423,23 +426,23 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
                 x, y);
     }
 
-    private static void paintBottom (Graphics2D g, Rectangle bounds, Color c1, Color c2, int thickness) {
+    static void paintBottom (Graphics2D g, Rectangle bounds, Color c1, Color c2, int thickness) {
         g.setPaint(new GradientPaint(bounds.x, bounds.y + bounds.height, c1,
                 bounds.x, bounds.y + bounds.height - thickness, c2));
         g.fillRect(bounds.x, bounds.y + bounds.height - thickness, bounds.width, thickness);
     }
 
-    private static void paintHover (Graphics2D g, Rectangle bounds, Color c, boolean selected) {
-        g.setColor(c);
+    private void paintHover (Graphics2D g, Rectangle bounds, boolean selected) {
+        g.setColor(hoverBorderC);
         g.drawRect(bounds.x + 1, bounds.y + 1, bounds.width - 2, bounds.height - 2);
         if (!selected) {
-            g.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), 150));
+            g.setColor(hoverBorderFaintC);
         }
         g.drawRect(bounds.x + 2, bounds.y + 2, bounds.width - 4, bounds.height - 4);
         if (selected) {
-            g.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), 150));
+            g.setColor(hoverBorderFaintC);
         } else {
-            g.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), 75));
+            g.setColor(hoverBorderFaintestC);
         }
         g.drawRect(bounds.x + 3, bounds.y + 3, bounds.width - 6, bounds.height - 6);
     }
@@ -501,10 +504,6 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
     private void updateContent () {
         boolean isAnimated = ((DependencyGraphScene)getScene()).isAnimated();
 
-        if (isAnimated) {
-            artifactW.setPreferredBounds(artifactW.getPreferredBounds());
-        }
-
         boolean makeReadable = getState().isSelected() || enlargedFromHover || readable;
 
         Font origF = getOrigFont();
@@ -515,11 +514,20 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
             newF = getReadable(getScene(), origF);
         }
 
-        artifactW.setFont(newF);
-        versionW.setFont(newF);
+        // fonts come from the scene's cache, so an unchanged size is the
+        // same instance and needs no relayout
+        if (newF != currentFont) {
+            if (isAnimated) {
+                artifactW.setPreferredBounds(artifactW.getPreferredBounds());
+            }
+
+            artifactW.setFont(newF);
+            versionW.setFont(newF);
+            currentFont = newF;
 
-        if (isAnimated) {
-            getScene().getSceneAnimator().animatePreferredBounds(artifactW, null);
+            if (isAnimated) {
+                getScene().getSceneAnimator().animatePreferredBounds(artifactW, null);
+            }
         }
 
         if (fixHintW != null) {
@@ -541,11 +549,42 @@ class ArtifactWidget extends Widget implements ActionListener, SelectProvider {
         float fSizeRatio = scene.getDefaultFont().getSize() / (float)original.getSize();
         float ratio = (float) Math.max (1, fSizeRatio / Math.max(0.0001f, scene.getZoomFactor()));
         if (ratio != 1.0f) {
+            if (scene instanceof DependencyGraphScene) {
+                return ((DependencyGraphScene) scene).getFontCache().derive(original, original.getSize() * ratio);
+            }
             return original.deriveFont(original.getSize() * ratio);
         }
         return original;
     }
 
+    /**
+     * A label which looks up the bounds of its text in the scene's font
+     * cache rather than measuring it on every relayout; only valid for
+     * the default orientation without glyph vectors.
+     */
+    private static final class MeasuredLabelWidget extends LabelWidget {
+
+        MeasuredLabelWidget(Scene scene) {
+            super(scene);
+        }
+
+        @Override
+        protected Rectangle calculateClientArea() {
+            String label = getLabel();
+            Font font = getFont();
+            if (label == null || font == null) {
+                return super.calculateClientArea();
+            }
+            FontCache cache = ((DependencyGraphScene) getScene()).getFontCache();
+            Rectangle result = cache.labelBounds(font, label);
+            if (result == null) {
+                result = super.calculateClientArea();
+                cache.labelMeasured(font, label, result);
+            }
+            return result;
+        }
+    }
+
     @Override public boolean isAimingAllowed(Widget widget, Point localLocation, boolean invertSelection) {
         return false;
     }
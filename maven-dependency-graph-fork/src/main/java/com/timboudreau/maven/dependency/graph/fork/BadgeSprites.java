@@ -0,0 +1,210 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.UIManager;
+
+/**
+ * Least-recently-used cache of the gradient badges painted behind artifact
+ * widgets, so repainting the graph blits an image per widget instead of
+ * filling gradients. Widths are bucketed and the sprite stretched to the
+ * widget's exact width, which barely shows in a horizontal stretch of a
+ * gradient. Only used from the event thread.
+ *
+ * @author Tim Boudreau
+ */
+final class BadgeSprites {
+
+    // About 16MB of ARGB pixels
+    private static final long MAX_PIXELS = 4L * 1024 * 1024;
+    // Widgets differ in width with their label but mostly share a height
+    private static final int WIDTH_BUCKET = 4;
+    // In access order, so the first entry is the least recently used
+    private static final Map<Key, BufferedImage> SPRITES
+            = new LinkedHashMap<Key, BufferedImage>(64, 0.75f, true);
+    private static long pixels;
+
+    static {
+        UIManager.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if ("lookAndFeel".equals(evt.getPropertyName())) { //NOI18N
+                    SPRITES.clear();
+                    pixels = 0;
+                }
+            }
+        });
+    }
+
+    private BadgeSprites() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Paint the badges for a widget.
+     *
+     * @param g The graphics
+     * @param bounds The widget's client area
+     * @param zoom The scene's zoom factor, to pick the sprite resolution
+     * @param root If the widget is the root, which only gets a bottom bar
+     * @param scopeC The scope corner color, or null
+     * @param leftTopC The conflict or managed-version corner color, or null
+     * @param direct If the artifact is a direct dependency
+     */
+    static void paint(Graphics2D g, Rectangle bounds, double zoom, boolean root,
+            Color scopeC, Color leftTopC, boolean direct) {
+        if (!root && scopeC == null && leftTopC == null && !direct) {
+            return;
+        }
+        if (bounds.width <= 0 || bounds.height <= 0) {
+            return;
+        }
+        int scale = zoom <= 1 ? 1 : zoom <= 2 ? 2 : 4;
+        Key key = new Key(bucket(bounds.width, WIDTH_BUCKET),
+                bounds.height, scale, root,
+                root ? null : scopeC, root ? null : leftTopC, !root && direct);
+        BufferedImage sprite = SPRITES.get(key);
+        if (sprite == null) {
+            sprite = render(g, key);
+            SPRITES.put(key, sprite);
+            pixels += sprite.getWidth() * sprite.getHeight();
+            Iterator<BufferedImage> eldest = SPRITES.values().iterator();
+            while (pixels > MAX_PIXELS && SPRITES.size() > 1) {
+                BufferedImage evicted = eldest.next();
+                pixels -= evicted.getWidth() * evicted.getHeight();
+                eldest.remove();
+            }
+        }
+        g.drawImage(sprite, bounds.x, bounds.y, bounds.width, bounds.height, null);
+    }
+
+    private static int bucket(int size, int bucket) {
+        return ((size + bucket - 1) / bucket) * bucket;
+    }
+
+    private static BufferedImage render(Graphics2D target, Key key) {
+        BufferedImage result = target.getDeviceConfiguration().createCompatibleImage(
+                key.width * key.scale, key.height * key.scale, Transparency.TRANSLUCENT);
+        Graphics2D g = result.createGraphics();
+        try {
+            g.scale(key.scale, key.scale);
+            Rectangle bounds = new Rectangle(0, 0, key.width, key.height);
+            if (key.root) {
+                ArtifactWidget.paintBottom(g, bounds, ArtifactWidget.ROOT, Color.WHITE, bounds.height / 2);
+            } else {
+                if (key.scopeC != null) {
+                    ArtifactWidget.paintCorner(ArtifactWidget.RIGHT_BOTTOM, g, bounds, key.scopeC, Color.WHITE, bounds.width / 2, bounds.height / 2);
+                }
+                if (key.leftTopC != null) {
+                    ArtifactWidget.paintCorner(ArtifactWidget.LEFT_TOP, g, bounds, key.leftTopC, Color.WHITE, bounds.width, bounds.height / 2);
+                }
+                if (key.direct) {
+                    ArtifactWidget.paintBottom(g, bounds, ArtifactWidget.DIRECTS, Color.WHITE, bounds.height / 6);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return result;
+    }
+
+    private static final class Key {
+
+        private final int width;
+        private final int height;
+        private final int scale;
+        private final boolean root;
+        private final Color scopeC;
+        private final Color leftTopC;
+        private final boolean direct;
+
+        Key(int width, int height, int scale, boolean root, Color scopeC,
+                Color leftTopC, boolean direct) {
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+            this.root = root;
+            this.scopeC = scopeC;
+            this.leftTopC = leftTopC;
+            this.direct = direct;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = width;
+            hash = 31 * hash + height;
+            hash = 31 * hash + scale;
+            hash = 31 * hash + (root ? 1 : 0);
+            hash = 31 * hash + (scopeC == null ? 0 : scopeC.getRGB());
+            hash = 31 * hash + (leftTopC == null ? 0 : leftTopC.getRGB());
+            return 31 * hash + (direct ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return width == other.width && height == other.height
+                    && scale == other.scale && root == other.root
+                    && direct == other.direct
+                    && (scopeC == null ? other.scopeC == null : scopeC.equals(other.scopeC))
+                    && (leftTopC == null ? other.leftTopC == null : leftTopC.equals(other.leftTopC));
+        }
+    }
+}
@@ -45,12 +45,18 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
+import java.awt.geom.Point2D;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -145,6 +151,40 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
     private final Project nbProject;
     private final DependencyGraphTopComponent tc;
     private FitToViewLayout fitViewL;
+    // Nodes placed by placeNear(), to spread siblings around their anchor
+    private int placed;
+    // Graph node for each DependencyNode it represents, rebuilt when stale
+    private final Map<DependencyNode, ArtifactGraphNode> representants = new IdentityHashMap<DependencyNode, ArtifactGraphNode>();
+    private boolean representantsStale = true;
+    // The edge states and lit nodes the last highlightRelated() set; every
+    // other widget is disabled unless highlightCurrent has been cleared by
+    // something else changing widget states
+    private Map<ArtifactGraphEdge, Integer> litEdges = new IdentityHashMap<ArtifactGraphEdge, Integer>();
+    private Set<ArtifactGraphNode> litNodes = identitySet();
+    private boolean highlightCurrent;
+    // Built on first search after the graph changes
+    private SearchIndex searchIndex;
+    // The matches the last highlightSearch() showed, or null if widget
+    // states have changed since
+    private BitSet searchMatches;
+    // Each node's primary path to the root, computed on demand and dropped
+    // when nodes, edges or parents change
+    private final Map<ArtifactGraphNode, AncestryPath> ancestryPaths = new IdentityHashMap<ArtifactGraphNode, AncestryPath>();
+    // Built on first depth highlight after the graph changes; depthCurrent
+    // is set while widget states are the ones it last set
+    private DepthHighlight depthHighlight;
+    private boolean depthCurrent;
+    private EdgeWidget.Appearance edgeAppearance;
+    private final FontCache fontCache = new FontCache();
+    // Artifact widgets neither grayed nor disabled, and the scene bounds
+    // around them, dropped when the set changes or one of them revalidates
+    private final Set<ArtifactWidget> shownWidgets = identitySet();
+    private Rectangle shownBounds;
+    private final Widget.Dependency shownMoved = new Widget.Dependency() {
+        @Override public void revalidateDependency() {
+            shownBounds = null;
+        }
+    };
 
     private static Set<ArtifactGraphNode> EMPTY_SELECTION = new HashSet<ArtifactGraphNode>();
     private POMModel model;
@@ -246,6 +286,30 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         layout.reset();
         super.performLayout(true);
     }
+
+    /**
+     * Start a node added after the initial layout next to the node it is
+     * reached from, rather than wherever the layout puts unknown nodes.
+     */
+    void placeNear(ArtifactGraphNode node, ArtifactGraphNode anchor) {
+        Point2D at = layout.apply(anchor);
+        // Successive siblings go round the anchor by the golden angle
+        double angle = placed++ * 2.399963229728653;
+        try {
+            layout.setLocation(node, new Point2D.Double(
+                    at.getX() + Math.cos(angle) * 60, at.getY() + Math.sin(angle) * 60));
+        } catch (UnsupportedOperationException e) {
+            // some layouts dont support this
+        }
+    }
+
+    /**
+     * Let the layout continue from the current positions after nodes were
+     * added, without resetting it.
+     */
+    void refineLayout() {
+        setGraphLayout(layout, true);
+    }
     
     private final DefaultComboBoxModel<Layout<ArtifactGraphNode, ArtifactGraphEdge>> layoutModel;
     
@@ -286,7 +350,36 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         return true;
     }
 
+    FontCache getFontCache() {
+        return fontCache;
+    }
+
+    EdgeWidget.Appearance getEdgeAppearance() {
+        if (edgeAppearance == null) {
+            edgeAppearance = new EdgeWidget.Appearance();
+        }
+        return edgeAppearance;
+    }
+
     @CheckForNull ArtifactGraphNode getGraphNodeRepresentant(DependencyNode node) {
+        if (representantsStale) {
+            representants.clear();
+            for (ArtifactGraphNode grnode : getNodes()) {
+                for (DependencyNode dup : grnode.getDuplicatesOrConflicts()) {
+                    representants.put(dup, grnode);
+                }
+            }
+            // The artifact takes precedence, as in represents()
+            for (ArtifactGraphNode grnode : getNodes()) {
+                representants.put(grnode.getArtifact(), grnode);
+            }
+            representantsStale = false;
+        }
+        ArtifactGraphNode result = representants.get(node);
+        if (result != null) {
+            return result;
+        }
+        // An equal but not identical node
         for (ArtifactGraphNode grnode : getNodes()) {
             if (grnode.represents(node)) {
                 return grnode;
@@ -295,7 +388,128 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         return null;
     }
 
+    /**
+     * Note that widget highlight states were changed by something other
+     * than highlightRelated() or highlightSearch(), so the next call to
+     * either must update every widget.
+     */
+    void highlightInvalidated() {
+        highlightCurrent = false;
+        searchMatches = null;
+        depthCurrent = false;
+    }
+
+    private void representantsChanged() {
+        representantsStale = true;
+        searchIndex = null;
+        searchMatches = null;
+        pathsChanged();
+    }
+
+    private void pathsChanged() {
+        ancestryPaths.clear();
+        depthHighlight = null;
+        depthCurrent = false;
+    }
+
+    /**
+     * Gray out the nodes and edges deeper than the passed path length from
+     * the root, touching only the levels whose state changes if the depth
+     * highlight was the last one shown.
+     *
+     * @param max The deepest level to paint normally
+     */
+    void highlightDepth(int max) {
+        if (depthHighlight == null) {
+            depthHighlight = new DepthHighlight(this);
+        }
+        if (depthCurrent) {
+            depthHighlight.update(max);
+        } else {
+            depthHighlight.apply(max);
+        }
+        depthCurrent = true;
+        highlightCurrent = false;
+        searchMatches = null;
+    }
+
+    /**
+     * Highlight the included artifacts whose group id, artifact id or
+     * version contains the passed string, graying out the rest, and
+     * updating only widgets whose match changed since the last search.
+     *
+     * @param term The string, or null to gray out every artifact
+     */
+    void highlightSearch(String term) {
+        if (searchIndex == null) {
+            searchIndex = new SearchIndex(getNodes());
+        }
+        BitSet matches = term == null ? new BitSet() : searchIndex.find(term);
+        if (searchMatches != null) {
+            BitSet changed = (BitSet) matches.clone();
+            changed.xor(searchMatches);
+            for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+                searchIndex.node(id).getWidget().highlightText(matches.get(id));
+            }
+        } else {
+            for (int id = 0; id < searchIndex.size(); id++) {
+                searchIndex.node(id).getWidget().highlightText(matches.get(id));
+            }
+        }
+        searchMatches = matches;
+        highlightCurrent = false;
+        depthCurrent = false;
+    }
+
+    @Override protected void detachNodeWidget(ArtifactGraphNode node, Widget widget) {
+        representantsChanged();
+        if (widget instanceof ArtifactWidget) {
+            paintStateChanged((ArtifactWidget) widget, false);
+        }
+        super.detachNodeWidget(node, widget);
+    }
+
+    /**
+     * Track whether an artifact widget is one zooming to fit the
+     * highlighted widgets should include.
+     */
+    void paintStateChanged(ArtifactWidget widget, boolean shown) {
+        if (shown ? shownWidgets.add(widget) : shownWidgets.remove(widget)) {
+            shownBounds = null;
+            if (shown) {
+                widget.addDependency(shownMoved);
+            } else {
+                widget.removeDependency(shownMoved);
+            }
+        }
+    }
+
+    /**
+     * Get the scene bounds of the widgets which are neither grayed nor
+     * disabled, as of the last validation, or null if there are none;
+     * only recomputed after one of them moves, resizes, or changes state.
+     */
+    private Rectangle getShownBounds() {
+        if (shownBounds == null) {
+            for (ArtifactWidget aw : shownWidgets) {
+                Rectangle bounds = aw.getBounds();
+                if (bounds == null) {
+                    continue;
+                }
+                bounds = aw.convertLocalToScene(bounds);
+                if (shownBounds == null) {
+                    shownBounds = bounds;
+                } else {
+                    shownBounds.add(bounds);
+                }
+            }
+        }
+        return shownBounds == null ? null : new Rectangle(shownBounds);
+    }
+
     @Override protected Widget attachNodeWidget(ArtifactGraphNode node) {
+        representantsChanged();
+        highlightInvalidated();
         if (rootNode == null) {
             rootNode = node;
         }
@@ -304,6 +518,8 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         }
         ArtifactWidget root = new ArtifactWidget(this, node);
         mainLayer.addChild(root);
+        paintStateChanged(root, root.getPaintState() != EdgeWidget.DISABLED
+                && root.getPaintState() != EdgeWidget.GRAYED);
         node.setWidget(root);
         root.setOpaque(true);
 
@@ -320,11 +536,18 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
 //        EdgeWidget connectionWidget = new EdgeWidget(this, edge);
 //        connectionLayer.addChild(connectionWidget);
 //        return connectionWidget;
+        highlightInvalidated();
+        pathsChanged();
         JungConnectionWidget<ArtifactGraphNode, ArtifactGraphEdge> w = new EdgeWidget(this, edge);
         connectionLayer.addChild(w);
         return w;
     }
 
+    @Override protected void detachEdgeWidget(ArtifactGraphEdge edge, Widget widget) {
+        pathsChanged();
+        super.detachEdgeWidget(edge, widget);
+    }
+
     @Override protected void attachEdgeSourceAnchor(ArtifactGraphEdge edge,
             ArtifactGraphNode oldsource,
             ArtifactGraphNode source) {
@@ -345,11 +568,11 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
     }
 
     void highlightRelated (ArtifactGraphNode node) {
-        List<ArtifactGraphNode> importantNodes = new ArrayList<ArtifactGraphNode>();
-        List<ArtifactGraphEdge> otherPathsEdges = new ArrayList<ArtifactGraphEdge>();
-        List<ArtifactGraphEdge> primaryPathEdges = new ArrayList<ArtifactGraphEdge>();
-        List<ArtifactGraphNode> childrenNodes = new ArrayList<ArtifactGraphNode>();
-        List<ArtifactGraphEdge> childrenEdges = new ArrayList<ArtifactGraphEdge>();
+        Set<ArtifactGraphNode> importantNodes = identitySet();
+        Set<ArtifactGraphEdge> otherPathsEdges = identitySet();
+        Set<ArtifactGraphEdge> primaryPathEdges = identitySet();
+        Set<ArtifactGraphNode> childrenNodes = identitySet();
+        Set<ArtifactGraphEdge> childrenEdges = identitySet();
 
         importantNodes.add(node);
 
@@ -368,63 +591,176 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         addPathToRoot(node, primaryPathEdges, importantNodes);
 
         // other important paths
-        List<DependencyNode> representants = new ArrayList<DependencyNode>(node.getDuplicatesOrConflicts());
-        for (DependencyNode curRep : representants) {
+        for (DependencyNode curRep : node.getDuplicatesOrConflicts()) {
             addPathToRoot(curRep, curRep.getParent(), otherPathsEdges, importantNodes);
         }
 
-        EdgeWidget ew;
-        for (ArtifactGraphEdge curE : getEdges()) {
-            ew = (EdgeWidget) findWidget(curE);
-            if (primaryPathEdges.contains(curE)) {
-                ew.setState(EdgeWidget.HIGHLIGHTED_PRIMARY);
-            } else if (otherPathsEdges.contains(curE)) {
-                ew.setState(EdgeWidget.HIGHLIGHTED);
-            } else if (childrenEdges.contains(curE)) {
-                ew.setState(EdgeWidget.GRAYED);
-            } else {
-                ew.setState(EdgeWidget.DISABLED);
+        // Later puts win, so go from lowest to highest precedence
+        Map<ArtifactGraphEdge, Integer> edgeStates = new IdentityHashMap<ArtifactGraphEdge, Integer>();
+        for (ArtifactGraphEdge curE : childrenEdges) {
+            edgeStates.put(curE, EdgeWidget.GRAYED);
+        }
+        for (ArtifactGraphEdge curE : otherPathsEdges) {
+            edgeStates.put(curE, EdgeWidget.HIGHLIGHTED);
+        }
+        for (ArtifactGraphEdge curE : primaryPathEdges) {
+            edgeStates.put(curE, EdgeWidget.HIGHLIGHTED_PRIMARY);
+        }
+        Set<ArtifactGraphNode> nodesLit = identitySet();
+        nodesLit.addAll(importantNodes);
+        nodesLit.addAll(childrenNodes);
+
+        if (highlightCurrent) {
+            // Only what was lit before or is lit now can change
+            for (ArtifactGraphEdge curE : litEdges.keySet()) {
+                if (!edgeStates.containsKey(curE)) {
+                    setEdgeState(curE, EdgeWidget.DISABLED);
+                }
+            }
+            for (ArtifactGraphNode curN : litNodes) {
+                if (!nodesLit.contains(curN)) {
+                    setNodeLit(curN, false);
+                }
+            }
+            for (Map.Entry<ArtifactGraphEdge, Integer> e : edgeStates.entrySet()) {
+                setEdgeState(e.getKey(), e.getValue());
+            }
+            for (ArtifactGraphNode curN : nodesLit) {
+                setNodeLit(curN, true);
+            }
+        } else {
+            for (ArtifactGraphEdge curE : getEdges()) {
+                Integer state = edgeStates.get(curE);
+                setEdgeState(curE, state == null ? EdgeWidget.DISABLED : state);
+            }
+            for (ArtifactGraphNode curN : getNodes()) {
+                setNodeLit(curN, nodesLit.contains(curN));
             }
         }
+        litEdges = edgeStates;
+        litNodes = nodesLit;
+        highlightCurrent = true;
+        searchMatches = null;
+        depthCurrent = false;
+    }
 
-        ArtifactWidget aw;
-        for (ArtifactGraphNode curN : getNodes()) {
-            aw = (ArtifactWidget) findWidget(curN);
-            if (importantNodes.contains(curN)) {
-                aw.setPaintState(EdgeWidget.REGULAR);
-                aw.setReadable(true);
-            } else if (childrenNodes.contains(curN)) {
-                aw.setPaintState(EdgeWidget.REGULAR);
-                aw.setReadable(true);
-            } else {
-                aw.setPaintState(EdgeWidget.DISABLED);
-                aw.setReadable(false);
-            }
+    private void setEdgeState(ArtifactGraphEdge edge, int state) {
+        Widget w = findWidget(edge);
+        if (w instanceof EdgeWidget) {
+            ((EdgeWidget) w).setState(state);
         }
+    }
 
+    private void setNodeLit(ArtifactGraphNode node, boolean lit) {
+        ArtifactWidget aw = (ArtifactWidget) findWidget(node);
+        if (aw == null) {
+            // removed since the last highlight
+            return;
+        }
+        aw.setPaintState(lit ? EdgeWidget.REGULAR : EdgeWidget.DISABLED);
+        aw.setReadable(lit);
     }
 
-    private void addPathToRoot(ArtifactGraphNode node, List<ArtifactGraphEdge> edges, List<ArtifactGraphNode> nodes) {
-        DependencyNode parentDepN = node.getArtifactParent();
-        addPathToRoot(node.getArtifact(), parentDepN, edges, nodes);
+    private static <T> Set<T> identitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
     }
 
+    private void addPathToRoot(ArtifactGraphNode node, Set<ArtifactGraphEdge> edges, Set<ArtifactGraphNode> nodes) {
+        ancestryPath(node).addTo(edges, nodes);
+    }
 
-    private void addPathToRoot(DependencyNode depN, DependencyNode parentDepN, List<ArtifactGraphEdge> edges, List<ArtifactGraphNode> nodes) {
-        ArtifactGraphNode grNode;
-        while (parentDepN != null) {
-            grNode = getGraphNodeRepresentant(parentDepN);
-            if (grNode == null) {
-                return;
+
+    private void addPathToRoot(DependencyNode depN, DependencyNode parentDepN, Set<ArtifactGraphEdge> edges, Set<ArtifactGraphNode> nodes) {
+        if (parentDepN == null) {
+            return;
+        }
+        ArtifactGraphNode grNode = getGraphNodeRepresentant(parentDepN);
+        if (grNode == null) {
+            return;
+        }
+        ArtifactGraphNode targetNode = getGraphNodeRepresentant(depN);
+        if (targetNode == null) {
+            return;
+        }
+        edges.addAll(findEdgesBetween(grNode, targetNode));
+        nodes.add(grNode);
+        // past the first step the walk only depends on the graph node
+        ancestryPath(grNode).addTo(edges, nodes);
+    }
+
+    /**
+     * Get the edges and nodes on the path from a node up through its
+     * primary parents to the root, computing and caching the paths of any
+     * ancestors which are not cached yet.
+     */
+    private AncestryPath ancestryPath(ArtifactGraphNode node) {
+        AncestryPath result = ancestryPaths.get(node);
+        if (result != null) {
+            return result;
+        }
+        // Walk up to the root or the nearest ancestor with a cached path,
+        // then build each path from its parent's on the way back down
+        List<ArtifactGraphNode> chain = new ArrayList<ArtifactGraphNode>();
+        List<ArtifactGraphNode> parents = new ArrayList<ArtifactGraphNode>();
+        Set<ArtifactGraphNode> seen = identitySet();
+        AncestryPath base = AncestryPath.EMPTY;
+        for (ArtifactGraphNode curr = node; seen.add(curr);) {
+            DependencyNode parentDepN = curr.getArtifactParent();
+            ArtifactGraphNode parent = parentDepN == null ? null
+                    : getGraphNodeRepresentant(parentDepN);
+            if (parent == null) {
+                break;
             }
-            ArtifactGraphNode targetNode = getGraphNodeRepresentant(depN);
-            if (targetNode == null) {
-                return;
+            chain.add(curr);
+            parents.add(parent);
+            AncestryPath known = ancestryPaths.get(parent);
+            if (known != null) {
+                base = known;
+                break;
+            }
+            curr = parent;
+        }
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            ArtifactGraphNode parent = parents.get(i);
+            base = base.extend(findEdgesBetween(parent, chain.get(i)), parent);
+            ancestryPaths.put(chain.get(i), base);
+        }
+        if (chain.isEmpty()) {
+            ancestryPaths.put(node, base);
+        }
+        return base;
+    }
+
+    /**
+     * A node's path to the root, in arrays which begin with a copy of its
+     * parent's path.
+     */
+    private static final class AncestryPath {
+
+        static final AncestryPath EMPTY = new AncestryPath(
+                new ArtifactGraphEdge[0], new ArtifactGraphNode[0]);
+        private final ArtifactGraphEdge[] edges;
+        private final ArtifactGraphNode[] nodes;
+
+        AncestryPath(ArtifactGraphEdge[] edges, ArtifactGraphNode[] nodes) {
+            this.edges = edges;
+            this.nodes = nodes;
+        }
+
+        AncestryPath extend(Collection<ArtifactGraphEdge> stepEdges, ArtifactGraphNode parent) {
+            ArtifactGraphEdge[] newEdges = Arrays.copyOf(edges, edges.length + stepEdges.size());
+            int ix = edges.length;
+            for (ArtifactGraphEdge e : stepEdges) {
+                newEdges[ix++] = e;
             }
-            edges.addAll(findEdgesBetween(grNode, targetNode));
-            nodes.add(grNode);
-            depN = parentDepN;
-            parentDepN = grNode.getArtifactParent();
+            ArtifactGraphNode[] newNodes = Arrays.copyOf(nodes, nodes.length + 1);
+            newNodes[nodes.length] = parent;
+            return new AncestryPath(newEdges, newNodes);
+        }
+
+        void addTo(Set<ArtifactGraphEdge> edgeSet, Set<ArtifactGraphNode> nodeSet) {
+            Collections.addAll(edgeSet, edges);
+            Collections.addAll(nodeSet, nodes);
         }
     }
 
@@ -563,7 +899,7 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
 
     private static class FitToViewLayout extends SceneLayout {
 
-        private List<? extends Widget> widgets = null;
+        private boolean highlighted;
         private DependencyGraphScene depScene;
 
         FitToViewLayout(DependencyGraphScene scene) {
@@ -571,32 +907,36 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
             this.depScene = scene;
         }
 
-        /** Sets list of widgets to fit or null for fitting whole scene */
-        public void setWidgetsToFit (List<? extends Widget> widgets) {
-            this.widgets = widgets;
+        /** Sets whether to fit only the highlighted widgets or the whole scene */
+        public void setFitHighlighted (boolean highlighted) {
+            this.highlighted = highlighted;
         }
 
         @Override
         protected void performLayout() {
             Rectangle rectangle = null;
-            List<? extends Widget> toFit = widgets != null ? widgets : depScene.getChildren();
-            if (toFit == null) {
-                return;
-            }
-
-            for (Widget widget : toFit) {
-                Rectangle bounds = widget.getBounds();
-                if (bounds == null) {
-                    continue;
-                }
-                if (rectangle == null) {
-                    rectangle = widget.convertLocalToScene(bounds);
-                } else {
-                    rectangle = rectangle.union(widget.convertLocalToScene(bounds));
+            if (highlighted) {
+                rectangle = depScene.getShownBounds();
+            } else {
+                // the scene's children are its few layers, whose bounds
+                // already cover their widgets
+                for (Widget layer : depScene.getChildren()) {
+                    Rectangle bounds = layer.getBounds();
+                    if (bounds == null) {
+                        continue;
+                    }
+                    if (rectangle == null) {
+                        rectangle = layer.convertLocalToScene(bounds);
+                    } else {
+                        rectangle.add(layer.convertLocalToScene(bounds));
+                    }
                 }
             }
+            if (rectangle == null) {
+                return;
+            }
             // margin around
-            if (widgets == null) {
+            if (!highlighted) {
                 rectangle.grow(5, 5);
             } else {
                 rectangle.grow(25, 25);
@@ -606,7 +946,7 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
                     getViewportBorderBounds ().getSize ();
             double zf = Math.min ((double) viewDim.width / dim.width, (double) viewDim.height / dim.height);
             if (depScene.isAnimated()) {
-                if (widgets == null) {
+                if (!highlighted) {
                     depScene.getSceneAnimator().animateZoomFactor(zf);
                 } else {
                     CenteredZoomAnimator cza = new CenteredZoomAnimator(depScene.getSceneAnimator());
@@ -628,7 +968,7 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
 
         @Override public void actionPerformed(ActionEvent e) {
             FitToViewLayout ftvl = DependencyGraphScene.this.getFitToViewLayout();
-            ftvl.setWidgetsToFit(null);
+            ftvl.setFitHighlighted(false);
             ftvl.invokeLayout();
         }
     };
@@ -640,20 +980,8 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         }
 
         @Override public void actionPerformed(ActionEvent e) {
-            Collection<ArtifactGraphNode> grNodes = DependencyGraphScene.this.getNodes();
-            List<ArtifactWidget> aws = new ArrayList<ArtifactWidget>();
-            ArtifactWidget aw = null;
-            int paintState;
-            for (ArtifactGraphNode grNode : grNodes) {
-                aw = grNode.getWidget();
-                paintState = aw.getPaintState();
-                if (paintState != EdgeWidget.DISABLED && paintState != EdgeWidget.GRAYED) {
-                    aws.add(aw);
-                }
-            }
-
             FitToViewLayout ftvl = DependencyGraphScene.this.getFitToViewLayout();
-            ftvl.setWidgetsToFit(aws);
+            ftvl.setFitHighlighted(true);
             ftvl.invokeLayout();
         }
     };
@@ -781,6 +1109,7 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         }
         // note, must be called before node removing edges to work correctly
         node.getDuplicatesOrConflicts().removeAll(toExclude);
+        representantsChanged();
         for (ArtifactGraphEdge age : edges2Exclude) {
             removeEdge(age);
             age.getSource().removeChild(age.getTarget());
@@ -790,6 +1119,7 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         if (primaryExcluded) {
             ArtifactVersion newVersion = findNewest(node, true);
             node.getArtifact().getArtifact().setVersion(newVersion.toString());
+            representantsChanged();
             for (ArtifactGraphEdge age : incoming) {
                 EdgeWidget curEw = (EdgeWidget) findWidget(age);
                 if (curEw != null) {
@@ -836,6 +1166,7 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
             removeEdge(age);
             age.getSource().removeChild(dn);
             childNode.getDuplicatesOrConflicts().remove(dn);
+            representantsChanged();
         }
         // recurse to children
         for (ArtifactGraphNode age : children) {
@@ -951,6 +1282,7 @@ public class DependencyGraphScene extends JungScene<ArtifactGraphNode, ArtifactG
         private void updateGraph(FixDescription fixContent) {
             if (fixContent.isSet) {
                 node.getArtifact().getArtifact().setVersion(fixContent.version2Set.toString());
+                representantsChanged();
                 Collection<ArtifactGraphEdge> incoming = findNodeEdges(node, false, true);
                 for (ArtifactGraphEdge age : incoming) {
                     EdgeWidget curEw = (EdgeWidget) findWidget(age);
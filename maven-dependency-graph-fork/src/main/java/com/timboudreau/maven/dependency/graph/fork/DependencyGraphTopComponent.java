@@ -121,6 +121,8 @@ public class DependencyGraphTopComponent extends TopComponent implements LookupL
 //    public static final String ATTRIBUTE_DEPENDENCIES_LAYOUT = "MavenProjectDependenciesLayout"; //NOI18N
     private static final Logger LOG = Logger.getLogger(DependencyGraphTopComponent.class.getName());
     private static final RequestProcessor RP = new RequestProcessor(DependencyGraphTopComponent.class);
+    // Depth of the levels shown before the rest of the graph is added
+    private static final int INITIAL_DEPTH = 2;
     private final RequestProcessor.Task task_reload = RP.create(new Runnable() {
         @Override
         public void run() {
@@ -191,9 +193,9 @@ public class DependencyGraphTopComponent extends TopComponent implements LookupL
     private MultiViewElementCallback callback;
     final JScrollPane pane = new JScrollPane();
     
-    private HighlightVisitor highlightV;
-    
-    private Timer timer = new Timer(500, new ActionListener() {
+    // Searching is an index lookup, so only wait to coalesce fast typing
+    private static final int SEARCH_DELAY = 50;
+    private Timer timer = new Timer(SEARCH_DELAY, new ActionListener() {
         @Override public void actionPerformed(ActionEvent arg0) {
             checkFindValue();
         }
@@ -223,7 +225,7 @@ public class DependencyGraphTopComponent extends TopComponent implements LookupL
         layouts.addActionListener(this);
 //        project = proj;
         //sldDepth.getLabelTable().put(0, new JLabel(LBL_All())); LBL_All=All
-        timer.setDelay(500);
+        timer.setDelay(SEARCH_DELAY);
         timer.setRepeats(false);
         txtFind.getDocument().addDocumentListener(new DocumentListener() {
             @Override public void insertUpdate(DocumentEvent arg0) {
@@ -297,14 +299,9 @@ public class DependencyGraphTopComponent extends TopComponent implements LookupL
         if ("".equals(val)) { //NOI18N
             val = null;
         }
-        SearchVisitor visitor = new SearchVisitor(scene);
-        visitor.setSearchString(val);
-        DependencyNode node = scene.getRootGraphNode().getArtifact();
-        node.accept(visitor);
+        scene.highlightSearch(val);
         scene.validate();
         scene.repaint();
-        revalidate();
-        repaint();
 
     }
     
@@ -517,14 +514,9 @@ public class DependencyGraphTopComponent extends TopComponent implements LookupL
 
     /** Highlights/diminishes graph nodes and edges based on path from root depth */
     public void depthHighlight () {
-        if (highlightV == null) {
-            highlightV = new HighlightVisitor(scene);
-        }
         //int value = sldDepth.getValue();
         int value = ((SpinnerNumberModel)maxPathSpinner.getModel()).getNumber().intValue();
-        highlightV.setMaxDepth(value);
-        DependencyNode node = scene.getRootGraphNode().getArtifact();
-        node.accept(highlightV);
+        scene.highlightDepth(value);
         scene.validate();
         scene.repaint();
     }
@@ -550,7 +542,7 @@ public class DependencyGraphTopComponent extends TopComponent implements LookupL
                 @Override public void run() {
                     final DependencyGraphScene scene2 = new DependencyGraphScene(prj, nbProj, DependencyGraphTopComponent.this, model);
                     scene2.setAnimateIterativeLayouts(animateLayouts.isSelected());
-                    GraphConstructor constr = new GraphConstructor(scene2);
+                    final GraphConstructor constr = new GraphConstructor(scene2);
                     root.accept(constr);
                     SwingUtilities.invokeLater(new Runnable() {
                         @Override public void run() {
@@ -564,20 +556,10 @@ public class DependencyGraphTopComponent extends TopComponent implements LookupL
                                 sceneView.putClientProperty("print.printable", true); // NOI18N
                             }
                             pane.setViewportView(sceneView);
+                            constr.reveal(0, INITIAL_DEPTH);
                             scene.cleanLayout(pane);
                             scene.setSelectedObjects(Collections.singleton(scene.getRootGraphNode()));
-                            txtFind.setEnabled(true);
-                            btnBigger.setEnabled(true);
-                            btnSmaller.setEnabled(true);
-                            comScopes.setEnabled(true);
-                            if (scene.getMaxNodeDepth() > 1) {
-                                lblPath.setVisible(true);
-                                ((SpinnerNumberModel)maxPathSpinner.getModel()).
-                                        setMaximum(Integer.valueOf(scene.getMaxNodeDepth()));
-                                maxPathSpinner.setEnabled(true);
-                                maxPathSpinner.setVisible(true);
-                            }
-                            depthHighlight();
+                            revealFrom(constr, scene2, INITIAL_DEPTH + 1);
                         }
                     });
                 }
@@ -587,6 +569,40 @@ public class DependencyGraphTopComponent extends TopComponent implements LookupL
         }
     }
 
+    /**
+     * Add the remaining levels of the graph one per event, so the scene
+     * stays responsive while they stream in, then enable the controls which
+     * need the whole graph.
+     */
+    private void revealFrom(final GraphConstructor constr, final DependencyGraphScene scene2, final int depth) {
+        if (scene != scene2) {
+            // Replaced by a reload
+            return;
+        }
+        if (depth > constr.getMaxDepth()) {
+            txtFind.setEnabled(true);
+            btnBigger.setEnabled(true);
+            btnSmaller.setEnabled(true);
+            comScopes.setEnabled(true);
+            if (scene.getMaxNodeDepth() > 1) {
+                lblPath.setVisible(true);
+                ((SpinnerNumberModel)maxPathSpinner.getModel()).
+                        setMaximum(Integer.valueOf(scene.getMaxNodeDepth()));
+                maxPathSpinner.setEnabled(true);
+                maxPathSpinner.setVisible(true);
+            }
+            depthHighlight();
+            return;
+        }
+        constr.reveal(depth, depth);
+        scene2.refineLayout();
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override public void run() {
+                revealFrom(constr, scene2, depth + 1);
+            }
+        });
+    }
+
     @Override
     public JComponent getVisualRepresentation() {
         jPanel1.removeAll();
@@ -0,0 +1,183 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
+
+/**
+ * Grays out the nodes and edges deeper than a maximum path length from the
+ * root. The dependency tree is walked once, when this is created, to find
+ * the depth each widget is painted for; after that, changing the maximum
+ * only touches the levels between the old and new maximum.
+ *
+ * @author Tim Boudreau
+ */
+final class DepthHighlight {
+
+    private final DependencyGraphScene scene;
+    // Nodes and edges by the depth that decides their state, index 0 unused
+    private final List<List<ArtifactGraphNode>> nodesByDepth = new ArrayList<List<ArtifactGraphNode>>();
+    private final List<List<ArtifactGraphEdge>> edgesByDepth = new ArrayList<List<ArtifactGraphEdge>>();
+    private int max = -1;
+
+    DepthHighlight(DependencyGraphScene scene) {
+        this.scene = scene;
+        Indexer indexer = new Indexer();
+        scene.getRootGraphNode().getArtifact().accept(indexer);
+        for (Map.Entry<ArtifactGraphNode, Integer> e : indexer.nodeDepths.entrySet()) {
+            level(nodesByDepth, e.getValue()).add(e.getKey());
+        }
+        for (Map.Entry<ArtifactGraphEdge, Integer> e : indexer.edgeDepths.entrySet()) {
+            level(edgesByDepth, e.getValue()).add(e.getKey());
+        }
+        while (edgesByDepth.size() < nodesByDepth.size()) {
+            edgesByDepth.add(new ArrayList<ArtifactGraphEdge>());
+        }
+        while (nodesByDepth.size() < edgesByDepth.size()) {
+            nodesByDepth.add(new ArrayList<ArtifactGraphNode>());
+        }
+    }
+
+    private static <T> List<T> level(List<List<T>> levels, int depth) {
+        while (levels.size() <= depth) {
+            levels.add(new ArrayList<T>());
+        }
+        return levels.get(depth);
+    }
+
+    /**
+     * Set the state of every indexed widget for the passed maximum depth,
+     * also making nodes unreadable.
+     *
+     * @param max The deepest level painted normally
+     */
+    void apply(int max) {
+        for (int depth = 1; depth < nodesByDepth.size(); depth++) {
+            for (ArtifactGraphNode node : nodesByDepth.get(depth)) {
+                ArtifactWidget aw = (ArtifactWidget) scene.findWidget(node);
+                if (aw != null) {
+                    aw.setReadable(false);
+                }
+            }
+            paintLevel(depth, depth > max);
+        }
+        this.max = max;
+    }
+
+    /**
+     * Change the maximum depth, touching only the levels which change
+     * state; only valid if nothing else has changed widget states since
+     * the last call to apply() or update().
+     *
+     * @param max The deepest level painted normally
+     */
+    void update(int max) {
+        if (this.max < 0) {
+            apply(max);
+            return;
+        }
+        int from = Math.max(1, Math.min(this.max, max) + 1);
+        int to = Math.min(nodesByDepth.size() - 1, Math.max(this.max, max));
+        for (int depth = from; depth <= to; depth++) {
+            paintLevel(depth, depth > max);
+        }
+        this.max = max;
+    }
+
+    private void paintLevel(int depth, boolean grayed) {
+        int state = grayed ? EdgeWidget.GRAYED : EdgeWidget.REGULAR;
+        for (ArtifactGraphNode node : nodesByDepth.get(depth)) {
+            ArtifactWidget aw = (ArtifactWidget) scene.findWidget(node);
+            if (aw != null) {
+                aw.setPaintState(state);
+            }
+        }
+        for (ArtifactGraphEdge edge : edgesByDepth.get(depth)) {
+            EdgeWidget ew = (EdgeWidget) scene.findWidget(edge);
+            if (ew != null) {
+                ew.setState(state);
+            }
+        }
+    }
+
+    /**
+     * Records the depth each node and edge would be painted for by a walk
+     * which sets the state of every included node and its edges in turn,
+     * so the last visit touching a widget decides it.
+     */
+    private final class Indexer implements DependencyNodeVisitor {
+
+        private final Map<ArtifactGraphNode, Integer> nodeDepths = new IdentityHashMap<ArtifactGraphNode, Integer>();
+        private final Map<ArtifactGraphEdge, Integer> edgeDepths = new IdentityHashMap<ArtifactGraphEdge, Integer>();
+        private int depth;
+
+        @Override public boolean visit(DependencyNode node) {
+            if (node.getState() != DependencyNode.INCLUDED) {
+                return false;
+            }
+            depth++;
+            ArtifactGraphNode grNode = scene.getGraphNodeRepresentant(node);
+            if (grNode == null) {
+                return false;
+            }
+            nodeDepths.put(grNode, depth);
+            for (ArtifactGraphEdge e : scene.findNodeEdges(grNode, true, true)) {
+                edgeDepths.put(e, depth);
+            }
+            return true;
+        }
+
+        @Override public boolean endVisit(DependencyNode node) {
+            if (node.getState() == DependencyNode.INCLUDED) {
+                depth--;
+            }
+            return true;
+        }
+    }
+}
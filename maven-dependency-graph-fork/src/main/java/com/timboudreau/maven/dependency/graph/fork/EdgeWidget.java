@@ -45,6 +45,7 @@ package com.timboudreau.maven.dependency.graph.fork;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.Point;
 import java.awt.Stroke;
 import javax.swing.UIManager;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
@@ -71,14 +72,19 @@ public class EdgeWidget extends JungConnectionWidget<ArtifactGraphNode, Artifact
 
     private static float[] hsbVals = new float[3];
 
+    // Not a real state, so the first setState() always applies one
+    private static final int NO_STATE = -1;
+
     private ArtifactGraphEdge edge;
-    private int state = REGULAR;
+    private int state = NO_STATE;
     private boolean isConflict;
     private int edgeConflictType;
 
     private LabelWidget conflictVersion;
     private Widget versionW;
     private Stroke origStroke;
+    // Built the first time the edge is hovered after a model change
+    private String toolTip;
 
     public EdgeWidget(DependencyGraphScene scene, ArtifactGraphEdge edge) {
         super(scene, edge);
@@ -102,7 +108,17 @@ public class EdgeWidget extends JungConnectionWidget<ArtifactGraphNode, Artifact
         if (versionW == null) {
             if (isConflict || includedConflictType != ArtifactGraphNode.NO_CONFLICT) {
                 versionW = new LevelOfDetailsWidget(scene, 0.5, 0.7, Double.MAX_VALUE, Double.MAX_VALUE);
-                conflictVersion = new LabelWidget(scene, edge.getTarget().getArtifact().getVersion());
+                conflictVersion = new LabelWidget(scene, edge.getTarget().getArtifact().getVersion()) {
+                    @Override
+                    public boolean isHitAt(Point localLocation) {
+                        boolean hit = super.isHitAt(localLocation);
+                        // Built on hover, like the edge's own tooltip
+                        if (hit && getToolTipText() == null && EdgeWidget.this.isConflict) {
+                            setToolTipText(conflictText());
+                        }
+                        return hit;
+                    }
+                };
                 if (isConflict) {
                     Color c = getConflictColor(edgeConflictType);
                     if (c != null) {
@@ -123,11 +139,18 @@ public class EdgeWidget extends JungConnectionWidget<ArtifactGraphNode, Artifact
     }
 
     public void setState (int state) {
+        if (this.state == state) {
+            return;
+        }
         this.state = state;
         updateAppearance();
     }
 
     void modelChanged () {
+        toolTip = null;
+        if (conflictVersion != null) {
+            conflictVersion.setToolTipText(null);
+        }
         edgeConflictType = getConflictType();
         isConflict = edge.getTarget().getState() == DependencyNode.OMITTED_FOR_CONFLICT;
         // correction if some graph editing(fixing) was done
@@ -136,7 +159,9 @@ public class EdgeWidget extends JungConnectionWidget<ArtifactGraphNode, Artifact
         }
         
         updateVersionW(isConflict);
-        updateAppearance();
+        if (state != NO_STATE) {
+            updateAppearance();
+        }
     }
 
     @Messages({
@@ -145,68 +170,12 @@ public class EdgeWidget extends JungConnectionWidget<ArtifactGraphNode, Artifact
         "TIP_Primary=Primary dependency path",
         "TIP_Secondary=Secondary dependency path"
     })
-    @SuppressWarnings("fallthrough")
-    @org.netbeans.api.annotations.common.SuppressWarnings(value = "SF_SWITCH_FALLTHROUGH")
     private void updateAppearance () {
-        Color inactiveC = UIManager.getColor("textInactiveText");
-        if (inactiveC == null) {
-            inactiveC = Color.LIGHT_GRAY;
-        }
-        Color activeC = UIManager.getColor("textText");
-        if (activeC == null) {
-            activeC = Color.BLACK;
-        }
-        Color conflictC = getConflictColor(edgeConflictType);
-        if (conflictC == null) {
-            conflictC = activeC;
-        }
-
-        Stroke stroke = origStroke;
-        Color c = activeC;
-        switch (state) {
-            case REGULAR:
-                c = edge.isPrimary() ? middleColor(activeC, inactiveC) : isConflict ? conflictC : inactiveC;
-                break;
-            case GRAYED:
-                c = isConflict ? deriveColor(conflictC, 0.7f) : inactiveC;
-                break;
-            case HIGHLIGHTED_PRIMARY:
-                stroke = new BasicStroke(3);
-                // without break!
-            case HIGHLIGHTED:
-                c = isConflict ? conflictC : activeC;
-                break;
-        }
+        DependencyGraphScene grScene = (DependencyGraphScene)getScene();
+        Appearance appearance = grScene.getEdgeAppearance();
+        Color c = appearance.color(state, edge.isPrimary(), isConflict, edgeConflictType);
 
-        if (state != DISABLED) {
-            StringBuilder sb = new StringBuilder("<html>");
-            if (isConflict) {
-                DependencyGraphScene grScene = (DependencyGraphScene)getScene();
-                DependencyNode includedDepN = grScene.getGraphNodeRepresentant(
-                        edge.getTarget()).getArtifact();
-                if (includedDepN == null) {
-                    return;
-                }
-                DependencyNode parent = includedDepN.getParent();
-                String version = includedDepN.getArtifact().getVersion();
-                String requester = parent != null ? parent.getArtifact().getArtifactId() : "???";
-                String confText = edgeConflictType == ArtifactGraphNode.CONFLICT ? TIP_VersionConflict(version, requester) : TIP_VersionWarning(version, requester);
-                conflictVersion.setToolTipText(confText);
-                sb.append(confText);
-                sb.append("<br>");
-            }
-            sb.append("<i>");
-            if (edge.isPrimary()) {
-                sb.append(TIP_Primary());
-            } else {
-                sb.append(TIP_Secondary());
-            }
-            sb.append("</i>");
-            sb.append("</html>");
-            setToolTipText(sb.toString());
-        } else {
-            setToolTipText(null);
-        }
+        setToolTipText(state == DISABLED ? null : toolTip);
 
         if (conflictVersion != null) {
             conflictVersion.setForeground(c);
@@ -217,9 +186,8 @@ public class EdgeWidget extends JungConnectionWidget<ArtifactGraphNode, Artifact
 
         setVisible(state != DISABLED);
 
-        setStroke(stroke);
+        setStroke(state == HIGHLIGHTED_PRIMARY ? appearance.primaryStroke : origStroke);
 
-        DependencyGraphScene grScene = (DependencyGraphScene)getScene();
         if (grScene.isAnimated()) {
             grScene.getSceneAnimator().animateForegroundColor(this, c);
         } else {
@@ -227,6 +195,97 @@ public class EdgeWidget extends JungConnectionWidget<ArtifactGraphNode, Artifact
         }
     }
 
+    /**
+     * The scene reads the tooltip of the widget under the mouse right after
+     * hit-testing it, and Widget.getToolTipText() is final, so the tooltip
+     * is built here the first time the edge is hovered, rather than for
+     * every edge whose state changes. It only depends on the model, not the
+     * state, so it is kept until modelChanged().
+     */
+    @Override
+    public boolean isHitAt (Point localLocation) {
+        boolean hit = super.isHitAt(localLocation);
+        if (hit && toolTip == null && state != DISABLED) {
+            toolTip = toolTipText();
+            setToolTipText(toolTip);
+        }
+        return hit;
+    }
+
+    private String toolTipText () {
+        StringBuilder sb = new StringBuilder("<html>");
+        if (isConflict) {
+            String confText = conflictText();
+            if (confText != null) {
+                sb.append(confText);
+                sb.append("<br>");
+            }
+        }
+        sb.append("<i>");
+        if (edge.isPrimary()) {
+            sb.append(TIP_Primary());
+        } else {
+            sb.append(TIP_Secondary());
+        }
+        sb.append("</i>");
+        sb.append("</html>");
+        return sb.toString();
+    }
+
+    private String conflictText () {
+        DependencyGraphScene grScene = (DependencyGraphScene)getScene();
+        ArtifactGraphNode included = grScene.getGraphNodeRepresentant(edge.getTarget());
+        if (included == null) {
+            return null;
+        }
+        DependencyNode includedDepN = included.getArtifact();
+        DependencyNode parent = includedDepN.getParent();
+        String version = includedDepN.getArtifact().getVersion();
+        String requester = parent != null ? parent.getArtifact().getArtifactId() : "???";
+        return edgeConflictType == ArtifactGraphNode.CONFLICT ? TIP_VersionConflict(version, requester) : TIP_VersionWarning(version, requester);
+    }
+
+    /**
+     * The colors and strokes edges are painted with in each state, looked
+     * up once per scene rather than on every state change.
+     */
+    static final class Appearance {
+        final Color activeC;
+        final Color inactiveC;
+        final Color primaryC;
+        final Stroke primaryStroke = new BasicStroke(3);
+        // By conflict type
+        private final Color[] conflictC = new Color[3];
+        private final Color[] grayedConflictC = new Color[3];
+
+        Appearance () {
+            Color inactive = UIManager.getColor("textInactiveText");
+            inactiveC = inactive == null ? Color.LIGHT_GRAY : inactive;
+            Color active = UIManager.getColor("textText");
+            activeC = active == null ? Color.BLACK : active;
+            primaryC = middleColor(activeC, inactiveC);
+            for (int type = 0; type < conflictC.length; type++) {
+                Color conflict = getConflictColor(type);
+                conflictC[type] = conflict == null ? activeC : conflict;
+                grayedConflictC[type] = deriveColor(conflictC[type], 0.7f);
+            }
+        }
+
+        Color color (int state, boolean primary, boolean isConflict, int conflictType) {
+            switch (state) {
+                case REGULAR:
+                    return primary ? primaryC : isConflict ? conflictC[conflictType] : inactiveC;
+                case GRAYED:
+                    return isConflict ? grayedConflictC[conflictType] : inactiveC;
+                case HIGHLIGHTED_PRIMARY:
+                case HIGHLIGHTED:
+                    return isConflict ? conflictC[conflictType] : activeC;
+                default:
+                    return activeC;
+            }
+        }
+    }
+
     private int getConflictType () {
         ArtifactGraphNode included = ((DependencyGraphScene)getScene()).getGraphNodeRepresentant(edge.getTarget());
         if (included == null) {
@@ -0,0 +1,120 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-scene cache of the fonts artifact labels are enlarged to and of the
+ * bounds of label text measured in each font, so toggling readability on
+ * many widgets neither derives fonts nor measures text once warm. Sizes
+ * and measured fonts are bounded, since the readable size changes with
+ * the zoom factor.
+ *
+ * @author Tim Boudreau
+ */
+final class FontCache {
+
+    private static final int MAX_SIZES = 16;
+    private static final int MAX_MEASURED_FONTS = 8;
+    private final Map<Font, Map<Float, Font>> derived = new HashMap<Font, Map<Float, Font>>();
+    private final Map<Font, Map<String, Rectangle>> measured = lru(MAX_MEASURED_FONTS);
+
+    /**
+     * Get a font like the passed one in the passed size.
+     *
+     * @param base The font
+     * @param size The point size
+     * @return A font, the same instance for the same arguments while cached
+     */
+    Font derive(Font base, float size) {
+        Map<Float, Font> sizes = derived.get(base);
+        if (sizes == null) {
+            sizes = lru(MAX_SIZES);
+            derived.put(base, sizes);
+        }
+        Float key = size;
+        Font result = sizes.get(key);
+        if (result == null) {
+            result = base.deriveFont(size);
+            sizes.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the client area previously measured for a label.
+     *
+     * @param font The label's font
+     * @param label The label's text
+     * @return A copy of the bounds, or null if not measured
+     */
+    Rectangle labelBounds(Font font, String label) {
+        Map<String, Rectangle> labels = measured.get(font);
+        Rectangle result = labels == null ? null : labels.get(label);
+        return result == null ? null : new Rectangle(result);
+    }
+
+    void labelMeasured(Font font, String label, Rectangle bounds) {
+        Map<String, Rectangle> labels = measured.get(font);
+        if (labels == null) {
+            labels = new HashMap<String, Rectangle>();
+            measured.put(font, labels);
+        }
+        labels.put(label, new Rectangle(bounds));
+    }
+
+    private static <K, V> Map<K, V> lru(final int max) {
+        return new LinkedHashMap<K, V>(max * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > max;
+            }
+        };
+    }
+}
@@ -43,15 +43,15 @@
 package com.timboudreau.maven.dependency.graph.fork;
 
 import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Point2D;
-import java.util.Collection;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import javax.swing.JScrollPane;
 import org.netbeans.api.visual.layout.SceneLayout;
 import org.netbeans.api.visual.widget.Widget;
+import org.openide.util.RequestProcessor;
 
 
 /**
@@ -59,6 +59,20 @@ import org.netbeans.api.visual.widget.Widget;
  * http://mtc.epfl.ch/~beyer/CCVisu/manual/main005.html
  * 
  * Inspired by implementations at JUNG and Prefuse.
+ * <p>
+ * Repulsion uses the grid variant of the algorithm by default, ignoring
+ * nodes further apart than twice the force constant. The nodes, edges and
+ * widget sizes are captured from the scene when a layout starts, so the
+ * iterations may optionally run on a background thread, with widgets
+ * updated on the event thread when they complete. Iterating runs against
+ * a LayoutState of parallel arrays, and only finish() copies positions back
+ * to the nodes and their widgets.
+ * </p>
+ * <p>
+ * Iterating stops early once the layout has converged - when the mean
+ * distance nodes moved in an iteration falls below the convergence
+ * threshold - and rePerformLayout() can be given a time budget.
+ * </p>
  */
 public class FruchtermanReingoldLayout extends SceneLayout {
 
@@ -74,6 +88,14 @@ public class FruchtermanReingoldLayout extends SceneLayout {
     private static final double ALPHA = 0.1;
     private DependencyGraphScene scene;
     private JScrollPane panel;
+    // Roughly the size of a typical artifact widget
+    private static final int GRID_CELL_SIZE = 128;
+    private static final RequestProcessor RP = new RequestProcessor(FruchtermanReingoldLayout.class);
+    private boolean gridRepulsion = true;
+    private boolean background;
+    private volatile int generation;
+    private double convergenceThreshold = 0.05;
+    private volatile int iterationsUsed;
     
     public FruchtermanReingoldLayout(DependencyGraphScene scene, JScrollPane panel) {
         super(scene);
@@ -83,8 +105,94 @@ public class FruchtermanReingoldLayout extends SceneLayout {
         this.panel = panel;
     }
     
+    /**
+     * Compute repulsion only between nodes within twice the force constant
+     * of each other, using a grid, rather than between every pair of nodes.
+     *
+     * @param gridRepulsion Whether to use the grid
+     */
+    public void setGridRepulsion(boolean gridRepulsion) {
+        this.gridRepulsion = gridRepulsion;
+    }
+
+    public boolean isGridRepulsion() {
+        return gridRepulsion;
+    }
+
+    /**
+     * Run the iterations of performLayout() on a background thread, moving
+     * widgets and fitting the zoom on the event thread once they are done;
+     * starting another layout abandons one in progress.
+     *
+     * @param background Whether to lay out in the background
+     */
+    public void setBackground(boolean background) {
+        this.background = background;
+    }
+
+    public boolean isBackground() {
+        return background;
+    }
+
+    /**
+     * Set the mean distance, in scene coordinates, that nodes must move in
+     * an iteration for iterating to continue; zero or less always runs
+     * every iteration.
+     *
+     * @param convergenceThreshold The threshold
+     */
+    public void setConvergenceThreshold(double convergenceThreshold) {
+        this.convergenceThreshold = convergenceThreshold;
+    }
+
+    public double getConvergenceThreshold() {
+        return convergenceThreshold;
+    }
+
+    /**
+     * Get the number of iterations the most recent layout actually ran,
+     * which is fewer than requested if it converged or ran out of time.
+     *
+     * @return The number of iterations
+     */
+    public int getIterationsUsed() {
+        return iterationsUsed;
+    }
+
     public @Override void performLayout() {
-        performLayout(true);
+        // Called on the event thread; everything the run needs is captured
+        // now, so nothing it uses is replaced while it is iterating
+        final int gen = ++generation;
+        final Run run = new Run(LayoutState.capture(scene));
+        if (background) {
+            RP.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (gen != generation) {
+                        return;
+                    }
+                    if (run.iterate(gen, 0)) {
+                        EventQueue.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (gen == generation) {
+                                    finish(run);
+                                    fitZoom();
+                                }
+                            }
+                        });
+                    }
+                }
+            });
+            return;
+        }
+        if (run.iterate(gen, 0)) {
+            finish(run);
+            fitZoom();
+        }
+    }
+
+    private void fitZoom() {
         scene.validate();
         Rectangle rectangle = new Rectangle (0, 0, 1, 1);
         for (Widget widget : scene.getChildren()) {
@@ -101,49 +209,18 @@ public class FruchtermanReingoldLayout extends SceneLayout {
         scene.validate();
     }
     
-    private void performLayout(boolean finish) {
-        for (int i=0; i < iterations; i++ ) {
-            int repeats = 0;
-            while (true) {
-                
-            for (ArtifactGraphNode n : scene.getNodes()) {
-                if (n.isFixed()) {
-                    continue;
-                }
-//                if (i < iterations / 5) {
-//                    if (scene.findNodeEdges(n, false, true).size() == 1 
-//                       && scene.findNodeEdges(n, true, false).size() == 0) {
-//                        //for leaves, ignore repulsion first, to cause closer location to parent...
-//                        System.out.println("continue.." + n.getArtifact().getId());
-//                        continue;
-//                    }
-//                }
-                calcRepulsion(n);
-            }
-            for (ArtifactGraphEdge e : scene.getEdges()) {
-                calcAttraction(e);
-            }
-            for (ArtifactGraphNode n : scene.getNodes()) {
-                if (n.isFixed()) {
-                    continue;
-                }
-                calcPositions(n);
-            }
-            if (areAllFixed() || repeats > 2) {
-                doRelayoutNonFixed();
-                resetFixed();
-                cool(i);
-                break;
-            }
-            repeats = repeats + 1;
-            }
-        }
-        if (finish) {
-            finish();
-        }
-    }
-    
     public void rePerformLayout(int iters) {
+        rePerformLayout(iters, 0);
+    }
+
+    /**
+     * Re-run the layout for at most the passed number of iterations or
+     * milliseconds, whichever runs out first.
+     *
+     * @param iters The maximum number of iterations
+     * @param budgetMillis The time budget, or zero for none
+     */
+    public void rePerformLayout(int iters, long budgetMillis) {
         int nds = scene.getNodes().size();
         iterations = iters;
         bounds = scene.getBounds();
@@ -155,7 +232,12 @@ public class FruchtermanReingoldLayout extends SceneLayout {
 //        forceConstant = 0.75 * Math.sqrt(bounds.getHeight() * bounds.getWidth() / nds);
         forceConstant = 0.25 * Math.sqrt(bounds.getHeight() * bounds.getWidth() / nds);
 //        System.out.println("force constant2=" + forceConstant);
-        performLayout(false);
+        int gen = ++generation;
+        Run run = new Run(LayoutState.capture(scene));
+        if (run.iterate(gen, TimeUnit.MILLISECONDS.toNanos(budgetMillis))) {
+            run.state.store();
+            temp = run.temp;
+        }
     }
     
     
@@ -168,35 +250,147 @@ public class FruchtermanReingoldLayout extends SceneLayout {
         temp = bounds.getWidth() / 10;
         forceConstant = 0.75 * Math.sqrt(bounds.getHeight() * bounds.getWidth() / nds);
         
-        ArtifactGraphNode r = scene.getRootGraphNode();
-        r.locX = bounds.getCenterX();
-        r.locY = bounds.getCenterY();
-        r.setFixed(true);
-        layoutCirculary(scene.getNodes(), r);
+        Run run = new Run(LayoutState.capture(scene));
+        int r = run.state.root;
+        run.state.xs[r] = bounds.getCenterX();
+        run.state.ys[r] = bounds.getCenterY();
+        run.state.fixed[r] = true;
+        run.layoutCirculary(r);
+        run.state.store();
     }
-    
-    private void finish() {
-        for (ArtifactGraphNode n : scene.getNodes()) {
-            Widget wid = scene.findWidget(n);
+
+    /**
+     * Copy the positions of a completed run to the nodes and their widgets;
+     * must be called on the event thread.
+     */
+    private void finish(Run run) {
+        LayoutState state = run.state;
+        state.store();
+        temp = run.temp;
+        for (int n = 0; n < state.size; n++) {
+            Widget wid = scene.findWidget(state.nodes[n]);
             Point point = new Point();
-            point.setLocation(n.locX, n.locY);
+            point.setLocation(state.xs[n], state.ys[n]);
             wid.setPreferredLocation(point);
         }
     }
     
-    public void calcPositions(ArtifactGraphNode n) {
-        double deltaLength = Math.max(MIN,
-                Math.sqrt(n.dispX * n.dispX + n.dispY * n.dispY));
-        
-        double xDisp = n.dispX/deltaLength * Math.min(deltaLength, temp);
+    private static int round(double coordinate) {
+        // As Point.setLocation(double, double) does
+        return (int) Math.floor(coordinate + 0.5);
+    }
 
-        double yDisp = n.dispY/deltaLength * Math.min(deltaLength, temp);
-        
-        n.locX += xDisp;
-        n.locY += yDisp;
-        if (isThereFreeSpaceNonFixedSpace(n)) {
-            n.setFixed(true);
+    /**
+     * One layout run: its own state, working arrays and grids, and copies of
+     * the parameters it was started with, so that a run abandoned on a
+     * background thread never shares anything with the one replacing it.
+     * Nothing here touches the scene or the nodes.
+     */
+    private final class Run {
+
+        final LayoutState state;
+        private final int iterations;
+        private final double forceConstant;
+        private final boolean gridRepulsion;
+        private final double convergenceThreshold;
+        double temp;
+        private final OccupancyGrid fixedNodes = new OccupancyGrid(GRID_CELL_SIZE);
+        private final RepulsionGrid repulsionGrid = new RepulsionGrid();
+        private final double[] repulsion = new double[2];
+        // Positions at the start of the current iteration
+        private final double[] startXs;
+        private final double[] startYs;
+
+        Run(LayoutState state) {
+            this.state = state;
+            this.iterations = FruchtermanReingoldLayout.this.iterations;
+            this.forceConstant = FruchtermanReingoldLayout.this.forceConstant;
+            this.gridRepulsion = FruchtermanReingoldLayout.this.gridRepulsion;
+            this.convergenceThreshold = FruchtermanReingoldLayout.this.convergenceThreshold;
+            this.temp = FruchtermanReingoldLayout.this.temp;
+            startXs = new double[state.size];
+            startYs = new double[state.size];
+        }
+
+        /**
+         * Run the iterations, until converged or out of time if the budget
+         * is greater than zero, returning false if abandoned because
+         * another layout was started.
+         */
+        boolean iterate(int gen, long budgetNanos) {
+            long start = System.nanoTime();
+            int used = 0;
+            rebuildFixedNodes();
+            for (int i=0; i < iterations; i++ ) {
+                if (gen != generation) {
+                    return false;
+                }
+                if (budgetNanos > 0 && System.nanoTime() - start >= budgetNanos) {
+                    break;
+                }
+                System.arraycopy(state.xs, 0, startXs, 0, state.size);
+                System.arraycopy(state.ys, 0, startYs, 0, state.size);
+                int repeats = 0;
+                while (true) {
+                if (gridRepulsion) {
+                    // Positions only change after every repulsion is computed
+                    repulsionGrid.build(state.xs, state.ys, state.size, forceConstant * 2);
+                }
+                for (int n = 0; n < state.size; n++) {
+                    if (state.fixed[n]) {
+                        continue;
+                    }
+                    if (gridRepulsion) {
+                        calcGridRepulsion(n);
+                    } else {
+                        state.repulsion(n, forceConstant * forceConstant, MIN);
+                    }
+                }
+                state.attraction(forceConstant, MIN);
+                for (int n = 0; n < state.size; n++) {
+                    if (state.fixed[n]) {
+                        continue;
+                    }
+                    calcPositions(n);
+                }
+                if (areAllFixed() || repeats > 2) {
+                    doRelayoutNonFixed();
+                    resetFixed();
+                    cool(i);
+                    break;
+                }
+                repeats = repeats + 1;
+                }
+                used = i + 1;
+                if (isConverged()) {
+                    break;
+                }
+            }
+            if (gen != generation) {
+                return false;
+            }
+            iterationsUsed = used;
+            return true;
         }
+
+        private boolean isConverged() {
+            if (state.size == 0) {
+                return true;
+            }
+            double moved = 0;
+            for (int n = 0; n < state.size; n++) {
+                double xDelta = state.xs[n] - startXs[n];
+                double yDelta = state.ys[n] - startYs[n];
+                moved += Math.sqrt(xDelta * xDelta + yDelta * yDelta);
+            }
+            return moved / state.size < convergenceThreshold;
+        }
+
+        private void calcPositions(int n) {
+            state.move(n, temp, MIN);
+            if (isThereFreeSpaceNonFixedSpace(n)) {
+                fix(n);
+            }
 //        double x = n.locX;
 //        double y = n.locY;
 //        // don't let nodes leave the display
@@ -215,193 +409,144 @@ public class FruchtermanReingoldLayout extends SceneLayout {
 
 //        n.locX = x;
 //        n.locY = y;
-    }
+        }
 
-    public void calcAttraction(ArtifactGraphEdge e) {
-        ArtifactGraphNode n1 = scene.getEdgeSource(e);
-        ArtifactGraphNode n2 = scene.getEdgeTarget(e);
-        assert (n1 != null && n2 != null) : "wrong edge=" + e;
-//        Widget wid1 = scene.findWidget(n1);
-//        Rectangle rect1 = wid1.getBounds();
-//        Widget wid2 = scene.findWidget(n2);
-//        Rectangle rect2 = wid2.getBounds();
-        
-        double xDelta = n1.locX - n2.locX;
-        double yDelta = n1.locX - n2.locY;
+        /**
+         * Repulsion from only those nodes within twice the force constant of
+         * node <code>n</code>, found through the grid built from the current
+         * positions.
+         */
+        private void calcGridRepulsion(int n) {
+            repulsion[0] = 0;
+            repulsion[1] = 0;
+            repulsionGrid.repulsion(n, forceConstant * forceConstant, MIN, repulsion);
+            state.dispXs[n] = repulsion[0];
+            state.dispYs[n] = repulsion[1];
+        }
 
-        double deltaLength = Math.max(MIN, Math.sqrt(xDelta*xDelta + yDelta*yDelta));
-        double force =  (deltaLength * deltaLength) / forceConstant;
+        /**
+         * this "cools" down the forces causing smaller movements..
+         */
+        private void cool(int iter) {
+            temp *= (1.0 - iter / (double) iterations);
+        }
 
-        double xDisp = (xDelta / deltaLength) * force;
-        double yDisp = (yDelta / deltaLength) * force;
-        
-        n1.dispX -= xDisp; 
-        n1.dispY -= yDisp;
-        n2.dispX += xDisp; 
-        n2.dispY += yDisp;
-    }
 
-    public void calcRepulsion(ArtifactGraphNode n1) {
-        n1.dispX = 0.0; 
-        n1.dispY = 0.0;
-//        Widget wid1 = scene.findWidget(n1);
-//        Rectangle rect1 = wid1.getBounds();
-
-        for (ArtifactGraphNode n2 : scene.getNodes()) {
-//            Widget wid2 = scene.findWidget(n2);
-//            Rectangle rect2 = wid1.getBounds();
-            //TODO..
-//            if (n2.isFixed()) continue;
-            if (n1 != n2) {
-                double xDelta = n1.locX - n2.locX;
-                double yDelta = n1.locY - n2.locY;
-                double deltaLength = Math.max(MIN, Math.sqrt(xDelta*xDelta + yDelta*yDelta));
-                double force = (forceConstant * forceConstant) / deltaLength;
-                n1.dispX += (xDelta / deltaLength) * force;
-                n1.dispY += (yDelta / deltaLength) * force;
-            }
-        }
-    }
-    
-    /**
-     * this "cools" down the forces causing smaller movements..
-     */
-    private void cool(int iter) {
-        temp *= (1.0 - iter / (double) iterations);
-    }
-    
-    
-    private void layoutCirculary(Collection<ArtifactGraphNode> nodes, ArtifactGraphNode master) {
-        Point masterPoint = new Point();
-        masterPoint.setLocation(master.locX, master.locY);
-        double r;
-        double theta;
-        double thetaStep = Math.PI / 5;
-        r = 150;
-        theta = 0;
-        Iterator<ArtifactGraphNode> it = nodes.iterator();
-        ArtifactGraphNode nd = it.next();
-        while (true) {
-            AffineTransform tr = AffineTransform.getRotateInstance(theta);
-            Point2D d2point = tr.transform(new Point2D.Double(0, r), null);
-            Point point = new Point((int)d2point.getX() + masterPoint.x, (int)d2point.getY() + masterPoint.y);
-            if (isThereFreeSpace(point, nd)) {
-                nd.locX = point.getX();
-                nd.locY = point.getY();
-                nd.dispX = 0;
-                nd.dispY = 0;
-                if (it.hasNext()) {
-                    nd = it.next();
-                } else {
-                    return;
+        private void layoutCirculary(int master) {
+            Point masterPoint = new Point();
+            masterPoint.setLocation(state.xs[master], state.ys[master]);
+            double r;
+            double theta;
+            double thetaStep = Math.PI / 5;
+            r = 150;
+            theta = 0;
+            // Nodes placed so far, which candidate positions must not overlap
+            OccupancyGrid placed = new OccupancyGrid(GRID_CELL_SIZE);
+            addToGrid(placed, master);
+            int nd = 0;
+            while (nd < state.size) {
+                // (0, r) rotated by theta
+                int x = (int) (-r * Math.sin(theta)) + masterPoint.x;
+                int y = (int) (r * Math.cos(theta)) + masterPoint.y;
+                if (!state.isSized(nd) || placed.isFree(x, y, state.widths[nd], state.heights[nd])) {
+                    state.xs[nd] = x;
+                    state.ys[nd] = y;
+                    state.dispXs[nd] = 0;
+                    state.dispYs[nd] = 0;
+                    addToGrid(placed, nd);
+                    nd++;
+                    if (nd == state.size) {
+                        return;
+                    }
+                }
+                theta = theta + thetaStep;
+                if (theta > (Math.PI * 2 - Math.PI / 10)) {
+                    r = r + 90;
+                    theta = theta - Math.PI * 2;
+                    thetaStep = thetaStep * 3 / 4; 
                 }
             }
-            theta = theta + thetaStep;
-            if (theta > (Math.PI * 2 - Math.PI / 10)) {
-                r = r + 90;
-                theta = theta - Math.PI * 2;
-                thetaStep = thetaStep * 3 / 4; 
+
+        }
+
+        private void addToGrid(OccupancyGrid grid, int node) {
+            if (!state.isSized(node)) {
+                grid.addUnsized();
+            } else {
+                grid.add(round(state.xs[node]), round(state.ys[node]),
+                        state.widths[node], state.heights[node]);
             }
         }
-        
-    }
-    
-    private boolean isThereFreeSpace(Point pnt, ArtifactGraphNode node) {
-        Rectangle bnds = scene.findWidget(node).getBounds();
-        if (bnds == null) {
-            return true;
+
+        private void fix(int node) {
+            state.fixed[node] = true;
+            addToGrid(fixedNodes, node);
         }
-        bnds = new Rectangle(pnt.x, pnt.y, bnds.width, bnds.height);
-        for (ArtifactGraphNode nd : scene.getNodes()) {
-            Rectangle bnds2 = scene.findWidget(nd).getBounds();
-            if (bnds2 == null) {
-                return true;
-            }
-            Point point = new Point();
-            point.setLocation(nd.locX, nd.locY);
-            bnds2 = new Rectangle(point, bnds2.getSize());
-            if (bnds.intersects((bnds2))) {
-                return false;
+
+        private void rebuildFixedNodes() {
+            fixedNodes.clear();
+            for (int nd = 0; nd < state.size; nd++) {
+                if (state.fixed[nd]) {
+                    addToGrid(fixedNodes, nd);
+                }
             }
         }
-        return true;
-    }
 
-    private boolean areAllFixed() {
-        for (ArtifactGraphNode nd : scene.getNodes()) {
-            if (!nd.isFixed()) {
-                return false;
+        private boolean areAllFixed() {
+            for (int nd = 0; nd < state.size; nd++) {
+                if (!state.fixed[nd]) {
+                    return false;
+                }
             }
-        }
-        return true;
-    }
-    
-    private void resetFixed() {
-        for (ArtifactGraphNode nd : scene.getNodes()) {
-            nd.setFixed(false);
-        }
-        scene.getRootGraphNode().setFixed(true);
-    }
-    
-    private boolean isThereFreeSpaceNonFixedSpace(ArtifactGraphNode node) {
-        Rectangle bnds = scene.findWidget(node).getBounds();
-        if (bnds == null) {
             return true;
         }
-        Point pnt = new Point();
-        pnt.setLocation(node.locX, node.locY);
-        bnds = new Rectangle(pnt, bnds.getSize());
-        for (ArtifactGraphNode nd : scene.getNodes()) {
-            Rectangle bnds2 = scene.findWidget(nd).getBounds();
-            if (bnds2 == null) {
+
+        private void resetFixed() {
+            Arrays.fill(state.fixed, false);
+            fixedNodes.clear();
+            fix(state.root);
+        }
+
+        private boolean isThereFreeSpaceNonFixedSpace(int node) {
+            if (!state.isSized(node)) {
                 return true;
             }
-            Point point = new Point();
-            point.setLocation(nd.locX, nd.locY);
-            bnds2 = new Rectangle(point, bnds2.getSize());
-            if (nd.isFixed() && bnds.intersects((bnds2))) {
-                return false;
-            }
+            return fixedNodes.isFree(round(state.xs[node]), round(state.ys[node]),
+                    state.widths[node], state.heights[node]);
         }
-        return true;
-    }
-    
-    private void doRelayoutNonFixed() {
-        for (ArtifactGraphNode node : scene.getNodes()) {
-            if (!node.isFixed()) {
-                relayoutNonFixed(node);
+
+        private void doRelayoutNonFixed() {
+            for (int node = 0; node < state.size; node++) {
+                if (!state.fixed[node]) {
+                    relayoutNonFixed(node);
+                }
             }
         }
-    }
-    
-    private void relayoutNonFixed(ArtifactGraphNode node) {
-        Point masterPoint = new Point();
-        masterPoint.setLocation(node.locX, node.locY);
-        double r;
-        double theta;
-        double thetaStep = Math.PI / 5;
-        r = 30;
-        theta = 0;
-        node.setFixed(false);
-        while (true) {
-            AffineTransform tr = AffineTransform.getRotateInstance(theta);
-            Point2D d2point = tr.transform(new Point2D.Double(0, r), null);
-            Point point = new Point((int)d2point.getX() + masterPoint.x, (int)d2point.getY() + masterPoint.y);
-            node.locX = point.getX();
-            node.locY = point.getY();
-            if (isThereFreeSpaceNonFixedSpace(node)) {
-                node.setFixed(true);
-                return;
-            }
-            theta = theta + thetaStep;
-            if (theta > (Math.PI * 2 - Math.PI / 10)) {
-                r = r + 30;
-                theta = theta - Math.PI * 2;
-                thetaStep = thetaStep * 3 / 4; 
+
+        private void relayoutNonFixed(int node) {
+            Point masterPoint = new Point();
+            masterPoint.setLocation(state.xs[node], state.ys[node]);
+            double r;
+            double theta;
+            double thetaStep = Math.PI / 5;
+            r = 30;
+            theta = 0;
+            state.fixed[node] = false;
+            while (true) {
+                state.xs[node] = (int) (-r * Math.sin(theta)) + masterPoint.x;
+                state.ys[node] = (int) (r * Math.cos(theta)) + masterPoint.y;
+                if (isThereFreeSpaceNonFixedSpace(node)) {
+                    fix(node);
+                    return;
+                }
+                theta = theta + thetaStep;
+                if (theta > (Math.PI * 2 - Math.PI / 10)) {
+                    r = r + 30;
+                    theta = theta - Math.PI * 2;
+                    thetaStep = thetaStep * 3 / 4; 
+                }
             }
+
         }
-        
     }
-    
-    
-} 
+}
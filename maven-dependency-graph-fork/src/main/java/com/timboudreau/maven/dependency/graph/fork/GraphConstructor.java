@@ -42,9 +42,9 @@
 
 package com.timboudreau.maven.dependency.graph.fork;
 
-import com.timboudreau.vl.jung.JungScene.GraphMutator;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
@@ -56,6 +56,10 @@ import org.apache.maven.shared.dependency.tree.DependencyNode;
 import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
 
 /**
+ * Builds the graph for a dependency tree. Visiting the tree only builds
+ * the model, and may be done off the event thread; reveal() then adds it
+ * to the scene a range of depths at a time, so the root and first levels
+ * can be shown before deeper ones are added.
  *
  * @author mkleint
  */
@@ -66,6 +70,20 @@ class GraphConstructor implements DependencyNodeVisitor {
 //    private Stack<ArtifactGraphNode> graphPath;
     private Map<String, ArtifactGraphNode> cache;
     private List<ArtifactGraphEdge> edges;
+    // Artifact.getDependencyConflictId() builds a new string on every call,
+    // so compute each node's once
+    private Map<DependencyNode, String> conflictIds;
+    private Map<DependencyNode, String> relatedConflictIds;
+    // groupId -> artifactId -> managed version, built on first use
+    private Map<String, Map<String, String>> managedVersions;
+    // The shallowest depth each graph node is reached at, and the parent it
+    // is reached from there
+    private Map<ArtifactGraphNode, Integer> depths;
+    private Map<ArtifactGraphNode, DependencyNode> reachedFrom;
+    // The built graph, by the depth at which it is revealed
+    private final List<List<ArtifactGraphNode>> nodesByDepth = new ArrayList<List<ArtifactGraphNode>>();
+    private final List<List<ResolvedEdge>> edgesByDepth = new ArrayList<List<ResolvedEdge>>();
+    private final Map<ArtifactGraphNode, ArtifactGraphNode> anchors = new IdentityHashMap<ArtifactGraphNode, ArtifactGraphNode>();
 
     GraphConstructor(DependencyGraphScene scene) {
         this.scene = scene;
@@ -73,6 +91,41 @@ class GraphConstructor implements DependencyNodeVisitor {
 //        graphPath = new Stack<ArtifactGraphNode>();
         cache = new HashMap<String, ArtifactGraphNode>();
         edges = new ArrayList<ArtifactGraphEdge>();
+        conflictIds = new IdentityHashMap<DependencyNode, String>();
+        relatedConflictIds = new IdentityHashMap<DependencyNode, String>();
+        depths = new IdentityHashMap<ArtifactGraphNode, Integer>();
+        reachedFrom = new IdentityHashMap<ArtifactGraphNode, DependencyNode>();
+    }
+
+    private static final class ResolvedEdge {
+
+        final ArtifactGraphEdge edge;
+        final ArtifactGraphNode source;
+        final ArtifactGraphNode target;
+
+        ResolvedEdge(ArtifactGraphEdge edge, ArtifactGraphNode source, ArtifactGraphNode target) {
+            this.edge = edge;
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    private String conflictId(DependencyNode node) {
+        String result = conflictIds.get(node);
+        if (result == null) {
+            result = node.getArtifact().getDependencyConflictId().intern();
+            conflictIds.put(node, result);
+        }
+        return result;
+    }
+
+    private String relatedConflictId(DependencyNode node) {
+        String result = relatedConflictIds.get(node);
+        if (result == null) {
+            result = node.getRelatedArtifact().getDependencyConflictId().intern();
+            relatedConflictIds.put(node, result);
+        }
+        return result;
     }
 
     @Override public boolean visit(DependencyNode node) {
@@ -81,11 +134,12 @@ class GraphConstructor implements DependencyNodeVisitor {
         }
         ArtifactGraphNode grNode;
         boolean primary = false;
-        grNode = cache.get(node.getArtifact().getDependencyConflictId());
+        String id = conflictId(node);
+        grNode = cache.get(id);
         if (node.getState() == DependencyNode.INCLUDED) {
             if (grNode == null) {
                 grNode = new ArtifactGraphNode(node);
-                cache.put(node.getArtifact().getDependencyConflictId(), grNode);
+                cache.put(id, grNode);
             } else {
                 grNode.setArtifact(node);
             }
@@ -94,12 +148,17 @@ class GraphConstructor implements DependencyNodeVisitor {
         } else {
             if (grNode == null) {
                 grNode = new ArtifactGraphNode(node);
-                Artifact a = node.getState() == DependencyNode.OMITTED_FOR_CONFLICT ? node.getRelatedArtifact() : node.getArtifact();
-                cache.put(a.getDependencyConflictId(), grNode);
+                cache.put(node.getState() == DependencyNode.OMITTED_FOR_CONFLICT ? relatedConflictId(node) : id, grNode);
             }
             grNode.addDuplicateOrConflict(node);
         }
 
+        Integer depth = depths.get(grNode);
+        if (depth == null || path.size() < depth) {
+            depths.put(grNode, path.size());
+            reachedFrom.put(grNode, path.empty() ? null : path.peek());
+        }
+
         if (!path.empty()) {
             DependencyNode parent = path.peek();
             ArtifactGraphEdge ed = new ArtifactGraphEdge(parent, node);
@@ -110,7 +169,7 @@ class GraphConstructor implements DependencyNodeVisitor {
 
         if (node != root && grNode.getArtifact() != null) {
             grNode.setManagedState(
-                    obtainManagedState(grNode.getArtifact().getArtifact(), scene));
+                    obtainManagedState(grNode.getArtifact().getArtifact()));
         }
 
         path.push(node);
@@ -123,60 +182,135 @@ class GraphConstructor implements DependencyNodeVisitor {
         path.pop();
 //        graphPath.pop();
         if (root == node) {
-            try (GraphMutator<ArtifactGraphNode, ArtifactGraphEdge> mutator = scene.modifyGraph()) {
-                //add all nodes and edges now
-                ArtifactGraphNode rootNode = cache.get(node.getArtifact().getDependencyConflictId());
-                //root needs to go first..
-                mutator.addGraphNode(rootNode);
-                for (ArtifactGraphNode nd : cache.values()) {
-                    if (nd != rootNode) {
-                        mutator.addGraphNode(nd);
+            ArtifactGraphNode rootNode = cache.get(conflictId(node));
+            //root needs to go first..
+            addAtDepth(nodesByDepth, 0, rootNode);
+            for (ArtifactGraphNode nd : cache.values()) {
+                if (nd != rootNode) {
+                    addAtDepth(nodesByDepth, depthOf(nd), nd);
+                    DependencyNode from = reachedFrom.get(nd);
+                    if (from != null) {
+                        anchors.put(nd, cache.get(conflictId(from)));
                     }
                 }
-                for (ArtifactGraphEdge ed : edges) {
-                    ArtifactGraphNode grNode = cache.get(ed.getTarget().getArtifact().getDependencyConflictId());
-                    if (grNode == null) { //FOR conflicting nodes..
-                        grNode = cache.get(ed.getTarget().getRelatedArtifact().getDependencyConflictId());
-                    }
-                    ArtifactGraphNode parentGrNode = cache.get(ed.getSource().getArtifact().getDependencyConflictId());
-                    mutator.addGraphEdge(ed, parentGrNode, grNode);
+            }
+            for (ArtifactGraphEdge ed : edges) {
+                ArtifactGraphNode grNode = cache.get(conflictId(ed.getTarget()));
+                if (grNode == null) { //FOR conflicting nodes..
+                    grNode = cache.get(relatedConflictId(ed.getTarget()));
                 }
+                ArtifactGraphNode parentGrNode = cache.get(conflictId(ed.getSource()));
+                // Added once both ends are in the scene
+                addAtDepth(edgesByDepth, Math.max(depthOf(parentGrNode), depthOf(grNode)),
+                        new ResolvedEdge(ed, parentGrNode, grNode));
             }
+            conflictIds.clear();
+            relatedConflictIds.clear();
+            depths.clear();
+            reachedFrom.clear();
         }
         return true;
     }
 
-    private static int obtainManagedState (Artifact artifact, DependencyGraphScene scene) {
+    private int depthOf(ArtifactGraphNode nd) {
+        Integer result = depths.get(nd);
+        return result == null ? 0 : result;
+    }
+
+    private static <T> void addAtDepth(List<List<T>> lists, int depth, T item) {
+        while (lists.size() <= depth) {
+            lists.add(new ArrayList<T>());
+        }
+        lists.get(depth).add(item);
+    }
+
+    /**
+     * Get the deepest level of the graph built by visiting the tree.
+     *
+     * @return The depth, or -1 if the tree has not been visited
+     */
+    int getMaxDepth() {
+        return nodesByDepth.size() - 1;
+    }
+
+    /**
+     * Add the nodes first reached at depths <code>fromDepth</code> through
+     * <code>toDepth</code> to the scene, with the edges between them and
+     * shallower nodes. Must be called on the event thread, for successive
+     * ranges of depths starting at zero. Nodes added after the first range
+     * are placed beside the node they were reached from, so the layout can
+     * refine the existing one rather than start over. Does not lay out the
+     * scene - the caller does that once, by cleaning or refining the layout.
+     *
+     * @param fromDepth The first depth
+     * @param toDepth The last depth, inclusive
+     */
+    void reveal(int fromDepth, int toDepth) {
+        // Not modifyGraph(), whose close() would lay out the scene as well
+        for (int depth = fromDepth; depth <= toDepth && depth < nodesByDepth.size(); depth++) {
+            for (ArtifactGraphNode nd : nodesByDepth.get(depth)) {
+                scene.addGraphNode(nd);
+                ArtifactGraphNode anchor = anchors.get(nd);
+                if (fromDepth > 0 && anchor != null) {
+                    scene.placeNear(nd, anchor);
+                }
+            }
+        }
+        for (int depth = fromDepth; depth <= toDepth && depth < edgesByDepth.size(); depth++) {
+            for (ResolvedEdge ed : edgesByDepth.get(depth)) {
+                scene.addGraphEdge(ed.edge, ed.source, ed.target);
+            }
+        }
+        scene.sync();
+    }
+
+    private int obtainManagedState (Artifact artifact) {
+        if (managedVersions == null) {
+            managedVersions = indexManagedVersions(scene);
+        }
+        Map<String, String> artifacts = managedVersions.get(artifact.getGroupId());
+        if (artifacts == null || !artifacts.containsKey(artifact.getArtifactId())) {
+            return ArtifactGraphNode.UNMANAGED;
+        }
+        if (!artifact.getVersion().equals(artifacts.get(artifact.getArtifactId()))) {
+            return ArtifactGraphNode.OVERRIDES_MANAGED;
+        } else {
+            return ArtifactGraphNode.MANAGED;
+        }
+    }
+
+    private static Map<String, Map<String, String>> indexManagedVersions (DependencyGraphScene scene) {
+        Map<String, Map<String, String>> result = new HashMap<String, Map<String, String>>();
         MavenProject proj = scene.getMavenProject();
         if (proj == null) {
-            return ArtifactGraphNode.UNMANAGED;
+            return result;
         }
 
         DependencyManagement dm = proj.getDependencyManagement();
         if (dm == null) {
-            return ArtifactGraphNode.UNMANAGED;
+            return result;
         }
 
         @SuppressWarnings("unchecked")
         List<Dependency> deps = dm.getDependencies();
         if (deps == null) {
-            return ArtifactGraphNode.UNMANAGED;
+            return result;
         }
 
-        String id = artifact.getArtifactId();
-        String groupId = artifact.getGroupId();
-        String version = artifact.getVersion();
-
         for (Dependency dep : deps) {
-            if (id.equals(dep.getArtifactId()) && groupId.equals(dep.getGroupId())) {
-                if (!version.equals(dep.getVersion())) {
-                    return ArtifactGraphNode.OVERRIDES_MANAGED;
-                } else {
-                    return ArtifactGraphNode.MANAGED;
-                }
+            if (dep.getGroupId() == null || dep.getArtifactId() == null) {
+                continue;
+            }
+            Map<String, String> artifacts = result.get(dep.getGroupId());
+            if (artifacts == null) {
+                artifacts = new HashMap<String, String>();
+                result.put(dep.getGroupId(), artifacts);
+            }
+            // The first entry for an artifact wins, as it did when scanning
+            if (!artifacts.containsKey(dep.getArtifactId())) {
+                artifacts.put(dep.getArtifactId(), dep.getVersion());
             }
         }
-
-        return ArtifactGraphNode.UNMANAGED;
+        return result;
     }
 }
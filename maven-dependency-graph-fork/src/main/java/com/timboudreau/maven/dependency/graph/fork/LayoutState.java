@@ -0,0 +1,246 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.netbeans.api.visual.widget.Widget;
+
+/**
+ * Packed state for FruchtermanReingoldLayout: positions, displacements,
+ * fixed flags, widget sizes and edges held in parallel arrays indexed by a
+ * dense node id, rather than in fields scattered across ArtifactGraphNode
+ * objects on the heap. Captured from the scene on the event thread; the
+ * layout runs entirely against the arrays, and positions are only copied
+ * back to the nodes by store().
+ *
+ * @author Tim Boudreau
+ */
+final class LayoutState {
+
+    private static final ArtifactGraphNode[] NO_NODES = new ArtifactGraphNode[0];
+    final ArtifactGraphNode[] nodes;
+    final int size;
+    final double[] xs;
+    final double[] ys;
+    final double[] dispXs;
+    final double[] dispYs;
+    final boolean[] fixed;
+    // A width of -1 marks a node with no widget bounds
+    final int[] widths;
+    final int[] heights;
+    final int[] edgeSources;
+    final int[] edgeTargets;
+    final int root;
+
+    /**
+     * Create a state for nodes which exist only as ids, with every node
+     * unsized and at the origin.
+     *
+     * @param size The number of nodes
+     * @param edgeSources The source id of each edge
+     * @param edgeTargets The target id of each edge
+     * @param root The id of the root node, or -1
+     */
+    LayoutState(int size, int[] edgeSources, int[] edgeTargets, int root) {
+        this(NO_NODES, size, edgeSources, edgeTargets, root);
+    }
+
+    private LayoutState(ArtifactGraphNode[] nodes, int size, int[] edgeSources,
+            int[] edgeTargets, int root) {
+        this.nodes = nodes;
+        this.size = size;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.root = root;
+        xs = new double[size];
+        ys = new double[size];
+        dispXs = new double[size];
+        dispYs = new double[size];
+        fixed = new boolean[size];
+        widths = new int[size];
+        heights = new int[size];
+        Arrays.fill(widths, -1);
+    }
+
+    /**
+     * Capture the nodes, edges, widget sizes and current node positions of
+     * a scene; must be called on the event thread.
+     *
+     * @param scene The scene
+     * @return A state
+     */
+    static LayoutState capture(DependencyGraphScene scene) {
+        Collection<ArtifactGraphNode> sceneNodes = scene.getNodes();
+        ArtifactGraphNode[] nodes = sceneNodes.toArray(new ArtifactGraphNode[sceneNodes.size()]);
+        Map<ArtifactGraphNode, Integer> indices = new IdentityHashMap<>(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            indices.put(nodes[i], i);
+        }
+        Collection<ArtifactGraphEdge> edges = scene.getEdges();
+        int[] sources = new int[edges.size()];
+        int[] targets = new int[edges.size()];
+        int count = 0;
+        for (ArtifactGraphEdge e : edges) {
+            Integer src = indices.get(scene.getEdgeSource(e));
+            Integer dest = indices.get(scene.getEdgeTarget(e));
+            assert (src != null && dest != null) : "wrong edge=" + e;
+            if (src != null && dest != null) {
+                sources[count] = src;
+                targets[count++] = dest;
+            }
+        }
+        Integer root = indices.get(scene.getRootGraphNode());
+        LayoutState result = new LayoutState(nodes, nodes.length,
+                Arrays.copyOf(sources, count), Arrays.copyOf(targets, count),
+                root == null ? -1 : root);
+        for (int i = 0; i < nodes.length; i++) {
+            ArtifactGraphNode node = nodes[i];
+            Widget widget = scene.findWidget(node);
+            Rectangle bounds = widget == null ? null : widget.getBounds();
+            if (bounds != null) {
+                result.widths[i] = bounds.width;
+                result.heights[i] = bounds.height;
+            }
+            result.xs[i] = node.locX;
+            result.ys[i] = node.locY;
+            result.dispXs[i] = node.dispX;
+            result.dispYs[i] = node.dispY;
+            result.fixed[i] = node.isFixed();
+        }
+        return result;
+    }
+
+    /**
+     * Copy positions, displacements and fixed flags back to the nodes.
+     */
+    void store() {
+        for (int i = 0; i < nodes.length; i++) {
+            ArtifactGraphNode node = nodes[i];
+            node.locX = xs[i];
+            node.locY = ys[i];
+            node.dispX = dispXs[i];
+            node.dispY = dispYs[i];
+            node.setFixed(fixed[i]);
+        }
+    }
+
+    boolean isSized(int node) {
+        return widths[node] >= 0;
+    }
+
+    /**
+     * Set the displacement of a node to the repulsion of every other node,
+     * with the Fruchterman-Reingold repulsive force of
+     * <code>k<sup>2</sup> / distance</code>.
+     *
+     * @param node The node
+     * @param kSquared The square of the force constant
+     * @param minDistance Distance used for coincident nodes
+     */
+    void repulsion(int node, double kSquared, double minDistance) {
+        double x = xs[node];
+        double y = ys[node];
+        double dispX = 0;
+        double dispY = 0;
+        for (int other = 0; other < size; other++) {
+            if (other != node) {
+                double xDelta = x - xs[other];
+                double yDelta = y - ys[other];
+                double deltaLength = Math.max(minDistance, Math.sqrt(xDelta * xDelta + yDelta * yDelta));
+                double force = kSquared / deltaLength;
+                dispX += (xDelta / deltaLength) * force;
+                dispY += (yDelta / deltaLength) * force;
+            }
+        }
+        dispXs[node] = dispX;
+        dispYs[node] = dispY;
+    }
+
+    /**
+     * Add the attraction along every edge to the displacements of the nodes
+     * at either end.
+     *
+     * @param forceConstant The force constant
+     * @param minDistance Distance used for coincident nodes
+     */
+    void attraction(double forceConstant, double minDistance) {
+        for (int e = 0; e < edgeSources.length; e++) {
+            int n1 = edgeSources[e];
+            int n2 = edgeTargets[e];
+            double xDelta = xs[n1] - xs[n2];
+            double yDelta = ys[n1] - ys[n2];
+
+            double deltaLength = Math.max(minDistance, Math.sqrt(xDelta * xDelta + yDelta * yDelta));
+            double force = (deltaLength * deltaLength) / forceConstant;
+
+            double xDisp = (xDelta / deltaLength) * force;
+            double yDisp = (yDelta / deltaLength) * force;
+
+            dispXs[n1] -= xDisp;
+            dispYs[n1] -= yDisp;
+            dispXs[n2] += xDisp;
+            dispYs[n2] += yDisp;
+        }
+    }
+
+    /**
+     * Move a node along its displacement, by at most the temperature.
+     *
+     * @param node The node
+     * @param temp The temperature
+     * @param minDistance Floor for the length of the displacement
+     */
+    void move(int node, double temp, double minDistance) {
+        double dispX = dispXs[node];
+        double dispY = dispYs[node];
+        double deltaLength = Math.max(minDistance, Math.sqrt(dispX * dispX + dispY * dispY));
+        double step = Math.min(deltaLength, temp);
+        xs[node] += dispX / deltaLength * step;
+        ys[node] += dispY / deltaLength * step;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.util.Arrays;
+
+/**
+ * A uniform-grid spatial hash of node rectangles, used by
+ * FruchtermanReingoldLayout to test candidate positions against the nodes
+ * already placed without scanning every node in the scene. Each rectangle
+ * is recorded in every cell it overlaps, so a probe only examines the
+ * handful of rectangles sharing its cells; neither adding nor probing
+ * allocates once the tables have grown to the size of the graph.
+ *
+ * @author Tim Boudreau
+ */
+final class OccupancyGrid {
+
+    private static final long NO_CELL = Long.MIN_VALUE;
+    private final int cellSize;
+    // Rectangles
+    private int[] xs = new int[32];
+    private int[] ys = new int[32];
+    private int[] widths = new int[32];
+    private int[] heights = new int[32];
+    private int rectCount;
+    // Cell memberships - a linked list per cell
+    private int[] memberRect = new int[64];
+    private int[] memberNext = new int[64];
+    private int memberCount;
+    // Open-addressed cell table, mapping cell key to first membership
+    private long[] cellKeys;
+    private int[] cellHeads;
+    private int cellCount;
+    private boolean unsized;
+
+    OccupancyGrid(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Bad cell size " + cellSize);
+        }
+        this.cellSize = cellSize;
+        cellKeys = new long[64];
+        cellHeads = new int[64];
+        Arrays.fill(cellKeys, NO_CELL);
+    }
+
+    void clear() {
+        rectCount = 0;
+        memberCount = 0;
+        cellCount = 0;
+        unsized = false;
+        Arrays.fill(cellKeys, NO_CELL);
+    }
+
+    int size() {
+        return rectCount;
+    }
+
+    /**
+     * Note that a node whose widget has no bounds yet is present; as with
+     * the linear scan this replaces, any space is then considered free,
+     * since nothing meaningful can be said about overlaps before widgets
+     * are validated.
+     */
+    void addUnsized() {
+        unsized = true;
+    }
+
+    void add(int x, int y, int width, int height) {
+        if (rectCount == xs.length) {
+            int len = xs.length * 2;
+            xs = Arrays.copyOf(xs, len);
+            ys = Arrays.copyOf(ys, len);
+            widths = Arrays.copyOf(widths, len);
+            heights = Arrays.copyOf(heights, len);
+        }
+        int rect = rectCount++;
+        xs[rect] = x;
+        ys[rect] = y;
+        widths[rect] = width;
+        heights[rect] = height;
+        int maxCellX = cell(x + Math.max(0, width - 1));
+        int maxCellY = cell(y + Math.max(0, height - 1));
+        for (int cx = cell(x); cx <= maxCellX; cx++) {
+            for (int cy = cell(y); cy <= maxCellY; cy++) {
+                addMember(key(cx, cy), rect);
+            }
+        }
+    }
+
+    /**
+     * Determine if the passed rectangle overlaps any in the grid, using the
+     * same test as <code>Rectangle.intersects()</code>.
+     *
+     * @return true if it does not
+     */
+    boolean isFree(int x, int y, int width, int height) {
+        if (unsized) {
+            return true;
+        }
+        if (width <= 0 || height <= 0) {
+            return true;
+        }
+        int maxCellX = cell(x + width - 1);
+        int maxCellY = cell(y + height - 1);
+        for (int cx = cell(x); cx <= maxCellX; cx++) {
+            for (int cy = cell(y); cy <= maxCellY; cy++) {
+                int slot = find(key(cx, cy));
+                if (cellKeys[slot] == NO_CELL) {
+                    continue;
+                }
+                for (int m = cellHeads[slot]; m >= 0; m = memberNext[m]) {
+                    if (intersects(memberRect[m], x, y, width, height)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean intersects(int rect, int x, int y, int width, int height) {
+        int rw = widths[rect];
+        int rh = heights[rect];
+        if (rw <= 0 || rh <= 0) {
+            return false;
+        }
+        int rx = xs[rect];
+        int ry = ys[rect];
+        return x < rx + rw && y < ry + rh && rx < x + width && ry < y + height;
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private void addMember(long key, int rect) {
+        if (memberCount == memberRect.length) {
+            memberRect = Arrays.copyOf(memberRect, memberCount * 2);
+            memberNext = Arrays.copyOf(memberNext, memberCount * 2);
+        }
+        if ((cellCount + 1) * 2 > cellKeys.length) {
+            rehash();
+        }
+        int slot = find(key);
+        int member = memberCount++;
+        memberRect[member] = rect;
+        if (cellKeys[slot] == NO_CELL) {
+            cellKeys[slot] = key;
+            memberNext[member] = -1;
+            cellCount++;
+        } else {
+            memberNext[member] = cellHeads[slot];
+        }
+        cellHeads[slot] = member;
+    }
+
+    private int find(long key) {
+        int mask = cellKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (cellKeys[slot] != NO_CELL && cellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void rehash() {
+        long[] oldKeys = cellKeys;
+        int[] oldHeads = cellHeads;
+        cellKeys = new long[oldKeys.length * 2];
+        cellHeads = new int[oldKeys.length * 2];
+        Arrays.fill(cellKeys, NO_CELL);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NO_CELL) {
+                int slot = find(oldKeys[i]);
+                cellKeys[slot] = oldKeys[i];
+                cellHeads[slot] = oldHeads[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.util.Arrays;
+
+/**
+ * The grid variant of Fruchterman-Reingold repulsion: nodes are bucketed
+ * into square cells as wide as the cutoff radius, and each node is only
+ * repelled by nodes within the cutoff, all of which lie in its own or the
+ * eight surrounding cells. For a layout of roughly uniform density that
+ * makes a repulsion pass close to linear in the number of nodes, instead
+ * of quadratic.
+ *
+ * @author Tim Boudreau
+ */
+final class RepulsionGrid {
+
+    private static final long NO_CELL = Long.MIN_VALUE;
+    private double cellSize = 1;
+    private int[] next = new int[0];
+    private long[] cellKeys = new long[64];
+    private int[] cellHeads = new int[64];
+    private double[] xs;
+    private double[] ys;
+
+    /**
+     * Bucket the passed positions; the arrays are used directly, not
+     * copied, and must not change until the next call to build().
+     *
+     * @param xs X coordinates
+     * @param ys Y coordinates
+     * @param count The number of positions in use
+     * @param cutoff The distance beyond which nodes do not repel each other
+     */
+    void build(double[] xs, double[] ys, int count, double cutoff) {
+        this.xs = xs;
+        this.ys = ys;
+        this.cellSize = Math.max(1, cutoff);
+        if (next.length < count) {
+            next = new int[count];
+        }
+        int tableSize = cellKeys.length;
+        while (tableSize < count * 2) {
+            tableSize *= 2;
+        }
+        if (tableSize != cellKeys.length) {
+            cellKeys = new long[tableSize];
+            cellHeads = new int[tableSize];
+        }
+        Arrays.fill(cellKeys, NO_CELL);
+        for (int i = 0; i < count; i++) {
+            long key = key(cell(xs[i]), cell(ys[i]));
+            int slot = find(key);
+            if (cellKeys[slot] == NO_CELL) {
+                cellKeys[slot] = key;
+                next[i] = -1;
+            } else {
+                next[i] = cellHeads[slot];
+            }
+            cellHeads[slot] = i;
+        }
+    }
+
+    /**
+     * Add the repulsion of every node within the cutoff of node
+     * <code>i</code> to <code>into</code>, with the Fruchterman-Reingold
+     * repulsive force of <code>k<sup>2</sup> / distance</code>.
+     *
+     * @param i The node
+     * @param kSquared The square of the force constant
+     * @param minDistance Distance used for coincident nodes
+     * @param into Two-element array to add the x and y displacement to
+     */
+    void repulsion(int i, double kSquared, double minDistance, double[] into) {
+        double x = xs[i];
+        double y = ys[i];
+        double cutoffSquared = cellSize * cellSize;
+        int cx = cell(x);
+        int cy = cell(y);
+        double dispX = 0;
+        double dispY = 0;
+        for (int gx = cx - 1; gx <= cx + 1; gx++) {
+            for (int gy = cy - 1; gy <= cy + 1; gy++) {
+                int slot = find(key(gx, gy));
+                if (cellKeys[slot] == NO_CELL) {
+                    continue;
+                }
+                for (int j = cellHeads[slot]; j >= 0; j = next[j]) {
+                    if (j == i) {
+                        continue;
+                    }
+                    double xDelta = x - xs[j];
+                    double yDelta = y - ys[j];
+                    double distSquared = xDelta * xDelta + yDelta * yDelta;
+                    if (distSquared >= cutoffSquared) {
+                        continue;
+                    }
+                    double deltaLength = Math.max(minDistance, Math.sqrt(distSquared));
+                    double force = kSquared / deltaLength;
+                    dispX += (xDelta / deltaLength) * force;
+                    dispY += (yDelta / deltaLength) * force;
+                }
+            }
+        }
+        into[0] += dispX;
+        into[1] += dispY;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private int find(long key) {
+        int mask = cellKeys.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (cellKeys[slot] != NO_CELL && cellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+/**
+ * An n-gram index over the group id, artifact id and version of the
+ * included artifacts in a dependency graph, so finding the nodes whose
+ * coordinates contain a search string does not visit the whole tree. Every
+ * substring of one to three characters is indexed; a longer query
+ * intersects the postings of its trigrams and checks the few candidates
+ * left. Matching is case-sensitive, like String.contains().
+ *
+ * @author Tim Boudreau
+ */
+final class SearchIndex {
+
+    private static final int[] NONE = new int[0];
+    private static final int MAX_GRAM = 3;
+    private final ArtifactGraphNode[] nodes;
+    private final String[][] fields;
+    // Sorted ids of the nodes containing each gram
+    private final Map<String, int[]> postings = new HashMap<String, int[]>();
+
+    SearchIndex(Collection<ArtifactGraphNode> graphNodes) {
+        List<ArtifactGraphNode> included = new ArrayList<ArtifactGraphNode>(graphNodes.size());
+        for (ArtifactGraphNode nd : graphNodes) {
+            if (nd.getArtifact().getState() == DependencyNode.INCLUDED) {
+                included.add(nd);
+            }
+        }
+        nodes = included.toArray(new ArtifactGraphNode[included.size()]);
+        fields = new String[nodes.length][];
+        Map<String, Posting> building = new HashMap<String, Posting>();
+        for (int id = 0; id < nodes.length; id++) {
+            Artifact a = nodes[id].getArtifact().getArtifact();
+            fields[id] = new String[]{nonNull(a.getGroupId()), nonNull(a.getArtifactId()), nonNull(a.getVersion())};
+            for (String field : fields[id]) {
+                for (int start = 0; start < field.length(); start++) {
+                    for (int len = 1; len <= MAX_GRAM && start + len <= field.length(); len++) {
+                        String gram = field.substring(start, start + len);
+                        Posting posting = building.get(gram);
+                        if (posting == null) {
+                            posting = new Posting();
+                            building.put(gram, posting);
+                        }
+                        posting.add(id);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Posting> e : building.entrySet()) {
+            postings.put(e.getKey(), e.getValue().toArray());
+        }
+    }
+
+    private static final class Posting {
+
+        private int[] ids = new int[4];
+        private int count;
+
+        void add(int id) {
+            // Ids are added in ascending order, so a repeat is the last one
+            if (count > 0 && ids[count - 1] == id) {
+                return;
+            }
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, count);
+        }
+    }
+
+    private static String nonNull(String s) {
+        return s == null ? "" : s;
+    }
+
+    /**
+     * Get the number of nodes indexed, which are numbered from zero.
+     *
+     * @return The count
+     */
+    int size() {
+        return nodes.length;
+    }
+
+    ArtifactGraphNode node(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * Find the nodes whose group id, artifact id or version contains the
+     * passed string.
+     *
+     * @param term A non-empty string
+     * @return The ids of the matching nodes
+     */
+    BitSet find(String term) {
+        BitSet result = new BitSet(nodes.length);
+        if (term.length() <= MAX_GRAM) {
+            // The postings of a gram are exactly the nodes containing it
+            for (int id : posting(term)) {
+                result.set(id);
+            }
+            return result;
+        }
+        int[] candidates = null;
+        for (int start = 0; start + MAX_GRAM <= term.length(); start++) {
+            int[] ids = posting(term.substring(start, start + MAX_GRAM));
+            candidates = candidates == null ? ids : intersect(candidates, ids);
+            if (candidates.length == 0) {
+                return result;
+            }
+        }
+        for (int id : candidates) {
+            for (String field : fields[id]) {
+                if (field.contains(term)) {
+                    result.set(id);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private int[] posting(String gram) {
+        int[] result = postings.get(gram);
+        return result == null ? NONE : result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of one FruchtermanReingoldLayout force step over synthetic
+ * dependency trees, running the same arithmetic against the layout fields
+ * of ArtifactGraphNode objects scattered through the heap, as the layout
+ * used to, and against the parallel arrays of a LayoutState. Timings are a
+ * proxy for cache behavior; to see the miss counts directly, add
+ * <code>-prof perfnorm</code> to the JMH options on Linux. Run with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.timboudreau.maven.dependency.graph.fork.LayoutStateBenchmark</code>.
+ *
+ * @author Tim Boudreau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutStateBenchmark {
+
+    private static final double MIN = 0.000001D;
+    private static final double TEMP = 5;
+    // Roughly what the Maven model objects behind each node occupy
+    private static final int FILLER_BYTES = 512;
+
+    @Param({"500", "1000", "2000", "4000"})
+    public int nodes;
+
+    // Keeps the objects allocated between nodes reachable
+    private final List<Object> filler = new ArrayList<>();
+    private NodeObjects objects;
+    private LayoutState arrays;
+    private double forceConstant;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int[] parents = syntheticTree(nodes, 42);
+        forceConstant = 0.75 * Math.sqrt(nodes * 100);
+        verify(parents, forceConstant);
+        filler.clear();
+        objects = new NodeObjects(parents, filler);
+        arrays = arrays(parents);
+    }
+
+    @Benchmark
+    public double objects() {
+        objects.step(forceConstant);
+        return objects.nodes[0].locX;
+    }
+
+    @Benchmark
+    public double arrays() {
+        step(arrays, forceConstant);
+        return arrays.xs[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LayoutStateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * A random dependency tree: each node's parent is an earlier node,
+     * biased toward the first few so some artifacts have many dependencies.
+     */
+    static int[] syntheticTree(int size, long seed) {
+        Random rnd = new Random(seed);
+        int[] parents = new int[size];
+        parents[0] = -1;
+        for (int i = 1; i < size; i++) {
+            double bias = rnd.nextDouble();
+            parents[i] = (int) (bias * bias * i);
+        }
+        return parents;
+    }
+
+    static double[][] initialPositions(int size) {
+        Random rnd = new Random(size);
+        double[][] result = new double[2][size];
+        double extent = Math.sqrt(size) * 200;
+        for (int i = 0; i < size; i++) {
+            result[0][i] = rnd.nextDouble() * extent;
+            result[1][i] = rnd.nextDouble() * extent;
+        }
+        return result;
+    }
+
+    static LayoutState arrays(int[] parents) {
+        int size = parents.length;
+        int[] sources = new int[size - 1];
+        int[] targets = new int[size - 1];
+        for (int i = 1; i < size; i++) {
+            sources[i - 1] = parents[i];
+            targets[i - 1] = i;
+        }
+        LayoutState state = new LayoutState(size, sources, targets, 0);
+        double[][] positions = initialPositions(size);
+        System.arraycopy(positions[0], 0, state.xs, 0, size);
+        System.arraycopy(positions[1], 0, state.ys, 0, size);
+        return state;
+    }
+
+    static void step(LayoutState state, double forceConstant) {
+        double kSquared = forceConstant * forceConstant;
+        for (int n = 0; n < state.size; n++) {
+            state.repulsion(n, kSquared, MIN);
+        }
+        state.attraction(forceConstant, MIN);
+        for (int n = 0; n < state.size; n++) {
+            state.move(n, TEMP, MIN);
+        }
+    }
+
+    /**
+     * The step as it was written against ArtifactGraphNode fields, with
+     * nodes allocated among other objects and iterated in an order
+     * unrelated to allocation order, as the scene's node set is.
+     */
+    static final class NodeObjects {
+
+        final ArtifactGraphNode[] nodes;
+        final ArtifactGraphNode[] edgeSources;
+        final ArtifactGraphNode[] edgeTargets;
+
+        NodeObjects(int[] parents, List<Object> filler) {
+            int size = parents.length;
+            double[][] positions = initialPositions(size);
+            ArtifactGraphNode[] byId = new ArtifactGraphNode[size];
+            for (int i = 0; i < size; i++) {
+                byId[i] = new ArtifactGraphNode(null);
+                byId[i].locX = positions[0][i];
+                byId[i].locY = positions[1][i];
+                filler.add(new byte[FILLER_BYTES]);
+            }
+            edgeSources = new ArtifactGraphNode[size - 1];
+            edgeTargets = new ArtifactGraphNode[size - 1];
+            for (int i = 1; i < size; i++) {
+                edgeSources[i - 1] = byId[parents[i]];
+                edgeTargets[i - 1] = byId[i];
+            }
+            List<ArtifactGraphNode> shuffled = new ArrayList<>(size);
+            Collections.addAll(shuffled, byId);
+            Collections.shuffle(shuffled, new Random(size));
+            nodes = shuffled.toArray(new ArtifactGraphNode[size]);
+        }
+
+        void step(double forceConstant) {
+            for (ArtifactGraphNode n1 : nodes) {
+                n1.dispX = 0.0;
+                n1.dispY = 0.0;
+                for (ArtifactGraphNode n2 : nodes) {
+                    if (n1 != n2) {
+                        double xDelta = n1.locX - n2.locX;
+                        double yDelta = n1.locY - n2.locY;
+                        double deltaLength = Math.max(MIN, Math.sqrt(xDelta * xDelta + yDelta * yDelta));
+                        double force = (forceConstant * forceConstant) / deltaLength;
+                        n1.dispX += (xDelta / deltaLength) * force;
+                        n1.dispY += (yDelta / deltaLength) * force;
+                    }
+                }
+            }
+            for (int e = 0; e < edgeSources.length; e++) {
+                ArtifactGraphNode n1 = edgeSources[e];
+                ArtifactGraphNode n2 = edgeTargets[e];
+                double xDelta = n1.locX - n2.locX;
+                double yDelta = n1.locY - n2.locY;
+                double deltaLength = Math.max(MIN, Math.sqrt(xDelta * xDelta + yDelta * yDelta));
+                double force = (deltaLength * deltaLength) / forceConstant;
+                double xDisp = (xDelta / deltaLength) * force;
+                double yDisp = (yDelta / deltaLength) * force;
+                n1.dispX -= xDisp;
+                n1.dispY -= yDisp;
+                n2.dispX += xDisp;
+                n2.dispY += yDisp;
+            }
+            for (ArtifactGraphNode n : nodes) {
+                double deltaLength = Math.max(MIN, Math.sqrt(n.dispX * n.dispX + n.dispY * n.dispY));
+                n.locX += n.dispX / deltaLength * Math.min(deltaLength, TEMP);
+                n.locY += n.dispY / deltaLength * Math.min(deltaLength, TEMP);
+            }
+        }
+    }
+
+    /**
+     * Check both representations compute the same layout from the same
+     * start; repulsion sums in a different order, so allow for rounding.
+     */
+    private static void verify(int[] parents, double forceConstant) {
+        int size = parents.length;
+        NodeObjects freshObjects = new NodeObjects(parents, new ArrayList<>());
+        LayoutState freshArrays = arrays(parents);
+        freshObjects.step(forceConstant);
+        step(freshArrays, forceConstant);
+        ArtifactGraphNode[] byId = new ArtifactGraphNode[size];
+        byId[0] = freshObjects.edgeSources[0];
+        for (int i = 1; i < size; i++) {
+            byId[i] = freshObjects.edgeTargets[i - 1];
+        }
+        for (int i = 0; i < size; i++) {
+            if (Math.abs(byId[i].locX - freshArrays.xs[i]) > 1e-6
+                    || Math.abs(byId[i].locY - freshArrays.ys[i]) > 1e-6) {
+                throw new AssertionError("Node " + i + " differs: " + byId[i].locX
+                        + "," + byId[i].locY + " vs " + freshArrays.xs[i]
+                        + "," + freshArrays.ys[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks OccupancyGrid against the linear scan over Rectangle.intersects()
+ * which it replaced.
+ *
+ * @author Tim Boudreau
+ */
+public class OccupancyGridTest {
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random rnd = new Random(31);
+        OccupancyGrid grid = new OccupancyGrid(128);
+        List<Rectangle> placed = new ArrayList<Rectangle>();
+        // Enough rectangles to grow the tables and rehash the cells more
+        // than once, some with negative coordinates
+        for (int i = 0; i < 600; i++) {
+            Rectangle r = randomRectangle(rnd);
+            grid.add(r.x, r.y, r.width, r.height);
+            placed.add(r);
+        }
+        assertEquals(placed.size(), grid.size());
+        for (int i = 0; i < 5000; i++) {
+            Rectangle probe = randomRectangle(rnd);
+            assertEquals(probe.toString(), linearScanIsFree(placed, probe),
+                    grid.isFree(probe.x, probe.y, probe.width, probe.height));
+        }
+    }
+
+    @Test
+    public void testEdgesAndEmptyRectangles() {
+        OccupancyGrid grid = new OccupancyGrid(128);
+        grid.add(0, 0, 128, 128);
+        assertFalse(grid.isFree(127, 127, 10, 10));
+        // Touching edges do not overlap
+        assertTrue(grid.isFree(128, 0, 10, 10));
+        assertTrue(grid.isFree(-10, -10, 10, 10));
+        assertFalse(grid.isFree(-10, -10, 11, 11));
+        // Neither do rectangles with no area
+        assertTrue(grid.isFree(10, 10, 0, 10));
+        grid.add(500, 500, 0, 0);
+        assertTrue(grid.isFree(490, 490, 20, 20));
+        // Spanning several cells
+        grid.add(-1000, 2000, 3000, 5);
+        assertFalse(grid.isFree(1900, 2004, 1, 1));
+        assertTrue(grid.isFree(1900, 2005, 1, 1));
+    }
+
+    @Test
+    public void testUnsizedAndClear() {
+        OccupancyGrid grid = new OccupancyGrid(64);
+        grid.add(0, 0, 100, 100);
+        assertFalse(grid.isFree(50, 50, 10, 10));
+        grid.addUnsized();
+        assertTrue("Anything is free once an unsized node is present",
+                grid.isFree(50, 50, 10, 10));
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertTrue(grid.isFree(50, 50, 10, 10));
+        grid.add(40, 40, 20, 20);
+        assertFalse(grid.isFree(50, 50, 10, 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadCellSize() {
+        new OccupancyGrid(0);
+    }
+
+    private static Rectangle randomRectangle(Random rnd) {
+        return new Rectangle(rnd.nextInt(4000) - 2000, rnd.nextInt(4000) - 2000,
+                rnd.nextInt(300), rnd.nextInt(120));
+    }
+
+    private static boolean linearScanIsFree(List<Rectangle> placed, Rectangle probe) {
+        for (Rectangle r : placed) {
+            if (r.intersects(probe)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
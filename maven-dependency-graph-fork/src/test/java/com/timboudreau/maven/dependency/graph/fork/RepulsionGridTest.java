@@ -0,0 +1,129 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks RepulsionGrid against the pairwise repulsion of every node
+ * within the cutoff.
+ *
+ * @author Tim Boudreau
+ */
+public class RepulsionGridTest {
+
+    private static final double K_SQUARED = 40 * 40;
+    private static final double MIN = 0.000001D;
+
+    @Test
+    public void testMatchesPairwiseRepulsionWithinCutoff() {
+        Random rnd = new Random(7);
+        RepulsionGrid grid = new RepulsionGrid();
+        // Growing between builds, so the tables are reallocated, with
+        // fewer positions in use than the arrays hold
+        for (int count : new int[]{10, 300, 1200, 50}) {
+            double[] xs = new double[count + 5];
+            double[] ys = new double[count + 5];
+            // About one node per 60x60 square, straddling the origin
+            double side = Math.sqrt(count) * 60;
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = rnd.nextDouble() * side - side / 2;
+                ys[i] = rnd.nextDouble() * side - side / 2;
+            }
+            // Coincident nodes
+            xs[1] = xs[0];
+            ys[1] = ys[0];
+            double cutoff = 80;
+            grid.build(xs, ys, count, cutoff);
+            boolean anyRepelled = false;
+            for (int i = 0; i < count; i++) {
+                double[] expected = pairwise(xs, ys, count, i, cutoff);
+                double[] got = new double[2];
+                grid.repulsion(i, K_SQUARED, MIN, got);
+                // Summed in a different order
+                assertEquals("x of " + i + " of " + count, expected[0], got[0],
+                        Math.abs(expected[0]) * 1e-9);
+                assertEquals("y of " + i + " of " + count, expected[1], got[1],
+                        Math.abs(expected[1]) * 1e-9);
+                anyRepelled |= got[0] != 0 || got[1] != 0;
+            }
+            assertTrue("Nothing within the cutoff at " + count, anyRepelled);
+        }
+    }
+
+    @Test
+    public void testAddsToPassedArray() {
+        double[] xs = {0, 10};
+        double[] ys = {0, 0};
+        RepulsionGrid grid = new RepulsionGrid();
+        grid.build(xs, ys, 2, 100);
+        double[] into = {5, 5};
+        grid.repulsion(0, K_SQUARED, MIN, into);
+        assertEquals(5 - K_SQUARED / 10, into[0], 1e-9);
+        assertEquals(5, into[1], 1e-9);
+    }
+
+    private static double[] pairwise(double[] xs, double[] ys, int count, int node, double cutoff) {
+        double dispX = 0;
+        double dispY = 0;
+        for (int other = 0; other < count; other++) {
+            if (other == node) {
+                continue;
+            }
+            double xDelta = xs[node] - xs[other];
+            double yDelta = ys[node] - ys[other];
+            double dist = Math.sqrt(xDelta * xDelta + yDelta * yDelta);
+            if (dist >= cutoff) {
+                continue;
+            }
+            double deltaLength = Math.max(MIN, dist);
+            double force = K_SQUARED / deltaLength;
+            dispX += (xDelta / deltaLength) * force;
+            dispY += (yDelta / deltaLength) * force;
+        }
+        return new double[]{dispX, dispY};
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2010 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2020 Tim Boudreau
+ */
+
+package com.timboudreau.maven.dependency.graph.fork;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks SearchIndex against String.contains() over every field, for
+ * terms short enough to be a single gram and terms that need their
+ * trigram postings intersected.
+ *
+ * @author Tim Boudreau
+ */
+public class SearchIndexTest {
+
+    private static final String[][] COORDINATES = {
+        {"org.apache.maven", "maven-core", "3.0.4"},
+        {"org.apache.maven", "maven-model", "3.0.4"},
+        {"org.apache.maven.shared", "maven-dependency-tree", "2.0"},
+        {"com.google.guava", "guava", "19.0"},
+        {"junit", "junit", "4.13.1"},
+        {"org.hamcrest", "hamcrest-core", "2.2"},
+        // Contains every trigram of "abcd" but not "abcd" itself
+        {"x.abcx", "bcdy", "1"},
+        {"x.abcd", "thing", "1.0-SNAPSHOT"},
+    };
+
+    @Test
+    public void testMatchesContains() {
+        List<ArtifactGraphNode> nodes = nodes();
+        SearchIndex index = new SearchIndex(nodes);
+        assertEquals(COORDINATES.length, index.size());
+        String[] terms = {"o", "m", "3", ".", "-", "or", "ju", "ap", "org", "ven",
+            "4.1", "maven", "apache.maven", "maven-co", "hamcrest-core", "abcd",
+            "bcdy", "junit", "Maven", "zzz", "qq", "x", "3.0.4", "SNAPSHOT",
+            "guava19", "org.apache.maven.shared"};
+        for (String term : terms) {
+            BitSet expected = new BitSet();
+            for (int id = 0; id < index.size(); id++) {
+                if (contains(index.node(id), term)) {
+                    expected.set(id);
+                }
+            }
+            assertEquals(term, expected, index.find(term));
+        }
+        assertEquals(1, index.find("abcd").cardinality());
+        assertTrue("Case-sensitive", index.find("Maven").isEmpty());
+    }
+
+    @Test
+    public void testOnlyIncludedNodesAreIndexed() {
+        List<ArtifactGraphNode> nodes = nodes();
+        Artifact omitted = artifact("org.omitted", "omitted-thing", "1.0");
+        nodes.add(new ArtifactGraphNode(new DependencyNode(omitted,
+                DependencyNode.OMITTED_FOR_DUPLICATE, omitted)));
+        SearchIndex index = new SearchIndex(nodes);
+        assertEquals(COORDINATES.length, index.size());
+        assertTrue(index.find("omitted").isEmpty());
+        assertTrue(index.find("omi").isEmpty());
+    }
+
+    private static List<ArtifactGraphNode> nodes() {
+        List<ArtifactGraphNode> result = new ArrayList<ArtifactGraphNode>();
+        for (String[] coords : COORDINATES) {
+            result.add(new ArtifactGraphNode(new DependencyNode(
+                    artifact(coords[0], coords[1], coords[2]))));
+        }
+        return result;
+    }
+
+    private static Artifact artifact(String groupId, String artifactId, String version) {
+        return new DefaultArtifact(groupId, artifactId, VersionRange.createFromVersion(version),
+                "compile", "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    private static boolean contains(ArtifactGraphNode node, String term) {
+        Artifact a = node.getArtifact().getArtifact();
+        return a.getGroupId().contains(term) || a.getArtifactId().contains(term)
+                || a.getVersion().contains(term);
+    }
+}
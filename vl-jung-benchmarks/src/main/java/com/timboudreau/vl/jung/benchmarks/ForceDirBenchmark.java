@@ -0,0 +1,89 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import com.mastfrog.alternate.layouts.ForceDir;
+import com.mastfrog.graph.ObjectGraph;
+import com.mastfrog.graph.jung.adapter.GraphAdapter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of one step of ForceDir - one ForceDirected.iterate() - visiting
+ * every pair of nodes, and only those near enough to act on each other. Relatedness uses shortest paths, since
+ * the default simple-paths model takes time exponential in the number of
+ * cycles and setup would never finish for anything but trees; computing it
+ * for every pair is still quadratic in time, which is what limits the
+ * default sizes.
+ *
+ * @author Tim Boudreau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForceDirBenchmark {
+
+    @Param({"100", "1000"})
+    public int nodes;
+
+    @Param({"RANDOM", "SCALE_FREE", "TREE", "DENSE"})
+    public GraphShape shape;
+
+    @Param({"false", "true"})
+    public boolean nearOnly;
+
+    private ForceDir<String, ?> layout;
+    private String probe;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticGraph synthetic = SyntheticGraph.create(shape, nodes, 42);
+        ObjectGraph<String> og = synthetic.toObjectGraph();
+        layout = ForceDir.shortestPaths(GraphAdapter.wrap(og), og, 3)
+                .setNearOnly(nearOnly);
+        probe = synthetic.node(0);
+    }
+
+    @Benchmark
+    public Object step() {
+        layout.step();
+        return layout.apply(probe);
+    }
+}
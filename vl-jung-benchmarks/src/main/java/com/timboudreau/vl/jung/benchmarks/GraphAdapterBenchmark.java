@@ -0,0 +1,155 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import com.mastfrog.graph.ObjectGraph;
+import com.mastfrog.graph.jung.adapter.GraphAdapter;
+import edu.uci.ics.jung.graph.Graph;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static com.timboudreau.vl.jung.benchmarks.SceneBenchmark.SAMPLES;
+
+/**
+ * Benchmarks of the JUNG adjacency calls layouts and scenes make, against an
+ * ObjectGraph wrapped by GraphAdapter, per call over a fixed sample of
+ * nodes. Results are iterated, since that is what callers do with them.
+ *
+ * @author Tim Boudreau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphAdapterBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int nodes;
+
+    @Param({"RANDOM", "SCALE_FREE", "TREE", "DENSE"})
+    public GraphShape shape;
+
+    private Graph<String, ?> graph;
+    private final String[] sampleNodes = new String[SAMPLES];
+    private final String[] sampleTargets = new String[SAMPLES];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticGraph synthetic = SyntheticGraph.create(shape, nodes, 42);
+        ObjectGraph<String> og = synthetic.toObjectGraph();
+        graph = GraphAdapter.wrap(og);
+        Random rnd = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            // Half of the edge lookups are for edges which exist
+            int[] edge = synthetic.edge(rnd.nextInt(synthetic.edgeCount()));
+            sampleNodes[i] = synthetic.node(edge[0]);
+            sampleTargets[i] = synthetic.node((i % 2) == 0 ? edge[1]
+                    : rnd.nextInt(synthetic.nodeCount()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void successors(Blackhole bh) {
+        for (String node : sampleNodes) {
+            for (String succ : graph.getSuccessors(node)) {
+                bh.consume(succ);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void predecessors(Blackhole bh) {
+        for (String node : sampleTargets) {
+            for (String pred : graph.getPredecessors(node)) {
+                bh.consume(pred);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void neighbors(Blackhole bh) {
+        for (String node : sampleNodes) {
+            for (String nb : graph.getNeighbors(node)) {
+                bh.consume(nb);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void outEdges(Blackhole bh) {
+        for (String node : sampleNodes) {
+            for (Object edge : graph.getOutEdges(node)) {
+                bh.consume(edge);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void inEdges(Blackhole bh) {
+        for (String node : sampleTargets) {
+            for (Object edge : graph.getInEdges(node)) {
+                bh.consume(edge);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void degree(Blackhole bh) {
+        for (String node : sampleNodes) {
+            bh.consume(graph.degree(node));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void findEdge(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            bh.consume(graph.findEdge(sampleNodes[i], sampleTargets[i]));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Shapes of synthetic graph the benchmarks are run against. Each produces a
+ * connected, directed edge list for a given node count and seed, so results
+ * are reproducible across runs and machines.
+ *
+ * @author Tim Boudreau
+ */
+public enum GraphShape {
+    /**
+     * A random spanning tree plus half as many again random edges.
+     */
+    RANDOM,
+    /**
+     * Barabasi-Albert preferential attachment, two edges per new node - a
+     * few heavily connected hubs and a long tail, like most dependency
+     * graphs.
+     */
+    SCALE_FREE,
+    /**
+     * A balanced tree with a branching factor of four.
+     */
+    TREE,
+    /**
+     * Sixteen random outbound edges per node.
+     */
+    DENSE;
+
+    private static final int BA_EDGES_PER_NODE = 2;
+    private static final int TREE_BRANCHING = 4;
+    private static final int DENSE_DEGREE = 16;
+
+    /**
+     * Generate the edges of a graph of this shape.
+     *
+     * @param nodes The number of nodes
+     * @param seed The random seed
+     * @return An array of source / target index pairs, with no duplicates
+     * or self-edges
+     */
+    public int[][] edges(int nodes, long seed) {
+        Random rnd = new Random(seed);
+        Set<Long> pairs = new LinkedHashSet<>();
+        switch (this) {
+            case RANDOM:
+                for (int i = 1; i < nodes; i++) {
+                    add(rnd.nextInt(i), i, pairs);
+                }
+                for (int i = 0; i < nodes / 2; i++) {
+                    add(rnd.nextInt(nodes), rnd.nextInt(nodes), pairs);
+                }
+                break;
+            case SCALE_FREE:
+                // Each edge contributes both endpoints, so picking uniformly
+                // from this array picks nodes in proportion to their degree
+                int[] ends = new int[nodes * BA_EDGES_PER_NODE * 2 + 2];
+                int endCount = 0;
+                for (int i = 1; i < nodes; i++) {
+                    int links = Math.min(i, BA_EDGES_PER_NODE);
+                    for (int j = 0; j < links; j++) {
+                        int target = endCount == 0 ? 0 : ends[rnd.nextInt(endCount)];
+                        if (add(i, target, pairs)) {
+                            ends[endCount++] = i;
+                            ends[endCount++] = target;
+                        }
+                    }
+                }
+                break;
+            case TREE:
+                for (int i = 1; i < nodes; i++) {
+                    add((i - 1) / TREE_BRANCHING, i, pairs);
+                }
+                break;
+            case DENSE:
+                int degree = Math.min(nodes - 1, DENSE_DEGREE);
+                for (int i = 1; i < nodes; i++) {
+                    add(rnd.nextInt(i), i, pairs);
+                }
+                for (int i = 0; i < nodes; i++) {
+                    for (int j = 1; j < degree; j++) {
+                        add(i, rnd.nextInt(nodes), pairs);
+                    }
+                }
+                break;
+            default:
+                throw new AssertionError(this);
+        }
+        int[][] result = new int[pairs.size()][];
+        int ix = 0;
+        for (long pair : pairs) {
+            result[ix++] = new int[]{(int) (pair >>> 32), (int) pair};
+        }
+        return result;
+    }
+
+    private static boolean add(int src, int dest, Set<Long> into) {
+        if (src == dest) {
+            return false;
+        }
+        return into.add(((long) src << 32) | dest);
+    }
+}
@@ -0,0 +1,164 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Accumulated wall-clock timings for each phase of rendering a scene, as
+ * collected by SceneHarness.
+ *
+ * @author Tim Boudreau
+ */
+public final class PhaseTimings {
+
+    private final Map<Phase, Stats> stats = new EnumMap<>(Phase.class);
+
+    public enum Phase {
+        /**
+         * Populating the scene from its graph; happens once.
+         */
+        SYNC,
+        /**
+         * Stepping the layout if it is iterative, and applying its node
+         * locations to the scene.
+         */
+        LAYOUT,
+        /**
+         * Validating the scene - computing widget bounds.
+         */
+        VALIDATE,
+        /**
+         * Painting the scene into an image.
+         */
+        PAINT;
+
+        String displayName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    void add(Phase phase, long nanos) {
+        Stats st = stats.get(phase);
+        if (st == null) {
+            st = new Stats();
+            stats.put(phase, st);
+        }
+        st.add(nanos);
+    }
+
+    public int count(Phase phase) {
+        Stats st = stats.get(phase);
+        return st == null ? 0 : st.count;
+    }
+
+    public double totalMillis(Phase phase) {
+        Stats st = stats.get(phase);
+        return st == null ? 0 : st.total / 1000000D;
+    }
+
+    public double meanMillis(Phase phase) {
+        Stats st = stats.get(phase);
+        return st == null ? 0 : (st.total / (double) st.count) / 1000000D;
+    }
+
+    public double minMillis(Phase phase) {
+        Stats st = stats.get(phase);
+        return st == null ? 0 : st.min / 1000000D;
+    }
+
+    public double maxMillis(Phase phase) {
+        Stats st = stats.get(phase);
+        return st == null ? 0 : st.max / 1000000D;
+    }
+
+    /**
+     * The frame rate that layout, validation and painting alone would allow,
+     * excluding the initial sync.
+     *
+     * @return Frames per second, or zero if no frames were run
+     */
+    public double framesPerSecond() {
+        int frames = count(Phase.PAINT);
+        double millis = totalMillis(Phase.LAYOUT) + totalMillis(Phase.VALIDATE)
+                + totalMillis(Phase.PAINT);
+        return frames == 0 || millis == 0 ? 0 : frames / (millis / 1000D);
+    }
+
+    /**
+     * Render as a JSON object with an object per phase which was run.
+     *
+     * @return A JSON string
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Phase phase : stats.keySet()) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(String.format(Locale.ROOT, "\"%s\":{\"count\":%d,\"totalMs\":%.4f,"
+                    + "\"meanMs\":%.4f,\"minMs\":%.4f,\"maxMs\":%.4f}",
+                    phase.displayName(), count(phase), totalMillis(phase),
+                    meanMillis(phase), minMillis(phase), maxMillis(phase)));
+        }
+        if (sb.length() > 1) {
+            sb.append(',');
+        }
+        return sb.append(String.format(Locale.ROOT, "\"framesPerSecond\":%.3f}",
+                framesPerSecond())).toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "%-10s%8s%12s%12s%12s%12s%n", "phase", "count", "total ms",
+                "mean ms", "min ms", "max ms"));
+        for (Phase phase : stats.keySet()) {
+            sb.append(String.format(Locale.ROOT, "%-10s%8d%12.3f%12.3f%12.3f%12.3f%n",
+                    phase.displayName(), count(phase), totalMillis(phase),
+                    meanMillis(phase), minMillis(phase), maxMillis(phase)));
+        }
+        return sb.append(String.format(Locale.ROOT, "%.2f frames/sec%n",
+                framesPerSecond())).toString();
+    }
+
+    private static final class Stats {
+
+        int count;
+        long total;
+        long min = Long.MAX_VALUE;
+        long max;
+
+        void add(long nanos) {
+            count++;
+            total += nanos;
+            min = Math.min(min, nanos);
+            max = Math.max(max, nanos);
+        }
+    }
+}
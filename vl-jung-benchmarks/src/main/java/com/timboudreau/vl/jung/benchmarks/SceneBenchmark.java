@@ -0,0 +1,177 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import com.timboudreau.vl.jung.GraphSelection;
+import com.timboudreau.vl.jung.extensions.BaseJungScene;
+import edu.uci.ics.jung.graph.Graph;
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the per-frame and per-gesture paths of a synced, laid out
+ * BaseJungScene: re-syncing an unchanged graph, JungScene.performLayout(),
+ * the selection listener BaseJungScene uses to recolor the graph,
+ * GraphSelection queries, and JungConnectionWidget bounds and hit tests.
+ * <p>
+ * Queries are run against a fixed sample of nodes and edges, and reported
+ * per query, so the numbers show how each scales with the size of the
+ * graph. Sizes default to 100 - 10000 nodes, since the scene is built once
+ * per fork; add <code>-p nodes=100000</code> to the arguments for the large
+ * sparse shapes.
+ *
+ * @author Tim Boudreau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SceneBenchmark {
+
+    static final int SAMPLES = 256;
+    private static final int SELECTED = 8;
+
+    @Param({"100", "1000", "10000"})
+    public int nodes;
+
+    @Param({"RANDOM", "SCALE_FREE", "TREE", "DENSE"})
+    public GraphShape shape;
+
+    private BaseJungScene<String, String> scene;
+    private GraphSelection<String, String> selection;
+    private final String[] sampleNodes = new String[SAMPLES];
+    private final Scenes.Connection[] sampleEdges = new Scenes.Connection[SAMPLES];
+    private final Point[] probes = new Point[SAMPLES];
+    private Set<String> selectionA;
+    private Set<String> selectionB;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Graph<String, String> graph = SyntheticGraph.create(shape, nodes, 42).toJung();
+        scene = Scenes.create(graph);
+        Scenes.onEventThread(() -> {
+            scene.sync();
+            scene.performLayout(false);
+            Scenes.validate(scene);
+        });
+        selection = scene.getSelection();
+        Random rnd = new Random(7);
+        String[] allNodes = graph.getVertices().toArray(new String[0]);
+        String[] allEdges = graph.getEdges().toArray(new String[0]);
+        for (int i = 0; i < SAMPLES; i++) {
+            sampleNodes[i] = allNodes[rnd.nextInt(allNodes.length)];
+            String edge = allEdges[rnd.nextInt(allEdges.length)];
+            sampleEdges[i] = (Scenes.Connection) scene.findWidget(edge);
+            // The midpoint of the chord between the endpoints - on the
+            // curve for straight edges, near it for curved ones
+            Point2D a = (Point2D) scene.layout().apply(graph.getSource(edge));
+            Point2D b = (Point2D) scene.layout().apply(graph.getDest(edge));
+            Point mid = new Point((int) ((a.getX() + b.getX()) / 2),
+                    (int) ((a.getY() + b.getY()) / 2));
+            probes[i] = sampleEdges[i].convertSceneToLocal(mid);
+        }
+        selectionA = new HashSet<>(Arrays.asList(sampleNodes).subList(0, SELECTED));
+        selectionB = new HashSet<>(Arrays.asList(sampleNodes).subList(SELECTED, SELECTED * 2));
+        Scenes.onEventThread(() -> scene.setSelectedObjects(selectionA));
+    }
+
+    @Benchmark
+    public void syncUnchanged() {
+        Scenes.onEventThread(scene::sync);
+    }
+
+    @Benchmark
+    public void performLayout() {
+        Scenes.onEventThread(() -> scene.performLayout(false));
+    }
+
+    @Benchmark
+    public void selectionChanged() {
+        Set<String> sel = (flip = !flip) ? selectionB : selectionA;
+        Scenes.onEventThread(() -> scene.setSelectedObjects(sel));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void isConnectedToSelection(Blackhole bh) {
+        for (String node : sampleNodes) {
+            bh.consume(selection.isConnectedToSelection(node));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void isIndirectlyConnectedToSelection(Blackhole bh) {
+        for (String node : sampleNodes) {
+            bh.consume(selection.isIndirectlyConnectedToSelection(node));
+        }
+    }
+
+    @Benchmark
+    public Set<String> nodesConnectedToSelection() {
+        return selection.getNodesConnectedToSelection(GraphSelection.EdgeTypes.IN,
+                GraphSelection.EdgeTypes.OUT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void connectionBounds(Blackhole bh) {
+        for (Scenes.Connection edge : sampleEdges) {
+            bh.consume(edge.computeBounds());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void connectionHitTests(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; i++) {
+            bh.consume(sampleEdges[i].isHitAt(probes[i]));
+        }
+    }
+}
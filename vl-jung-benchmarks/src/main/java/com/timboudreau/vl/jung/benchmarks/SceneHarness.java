@@ -0,0 +1,249 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import com.mastfrog.alternate.layouts.ForceDir;
+import com.timboudreau.vl.jung.JungScene;
+import com.timboudreau.vl.jung.benchmarks.PhaseTimings.Phase;
+import edu.uci.ics.jung.algorithms.layout.CircleLayout;
+import edu.uci.ics.jung.algorithms.layout.FRLayout;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.algorithms.layout.StaticLayout;
+import edu.uci.ics.jung.algorithms.layout.util.RandomLocationTransformer;
+import edu.uci.ics.jung.algorithms.util.IterativeContext;
+import edu.uci.ics.jung.graph.Graph;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+ * Drives a JungScene with no view: syncs it with its graph, then renders
+ * frames - step the layout if it is iterative, apply it to the scene,
+ * validate, and paint into an offscreen image scaled to fit - timing each
+ * phase. Everything runs on the event thread, as it would for a displayed
+ * scene, so this works under <code>java.awt.headless=true</code> and is
+ * usable from tests and CI.
+ * <p>
+ * Run from the command line against a synthetic graph with, e.g.
+ * <code>mvn compile exec:exec
+ * -Dbenchmark.main=com.timboudreau.vl.jung.benchmarks.SceneHarness
+ * -Dbenchmark.args="--nodes=5000 --shape=SCALE_FREE --layout=fr
+ * --frames=100 --json=target/harness.json"</code>.
+ *
+ * @author Tim Boudreau
+ */
+public final class SceneHarness {
+
+    private final JungScene<?, ?> scene;
+    private final BufferedImage image;
+    private final PhaseTimings timings = new PhaseTimings();
+    private Color background = Color.WHITE;
+    private boolean synced;
+
+    public SceneHarness(JungScene<?, ?> scene, int width, int height) {
+        this.scene = scene;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    public SceneHarness setBackground(Color background) {
+        this.background = background;
+        return this;
+    }
+
+    public JungScene<?, ?> scene() {
+        return scene;
+    }
+
+    /**
+     * The image the most recent frame was painted into.
+     *
+     * @return The image
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    public PhaseTimings timings() {
+        return timings;
+    }
+
+    /**
+     * Render some frames, syncing the scene first if this is the first call.
+     *
+     * @param count The number of frames
+     * @return this
+     */
+    public SceneHarness render(int count) {
+        Scenes.onEventThread(() -> {
+            for (int i = 0; i < count; i++) {
+                frame();
+            }
+        });
+        return this;
+    }
+
+    private void frame() {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            long start = System.nanoTime();
+            if (!synced) {
+                scene.sync();
+                synced = true;
+                long now = System.nanoTime();
+                timings.add(Phase.SYNC, now - start);
+                start = now;
+            }
+            Layout<?, ?> layout = scene.layout();
+            if (layout instanceof IterativeContext && !((IterativeContext) layout).done()) {
+                ((IterativeContext) layout).step();
+            }
+            scene.performLayout(false);
+            long laidOut = System.nanoTime();
+            scene.validate(g);
+            long validated = System.nanoTime();
+            g.setColor(background);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            fit(g, scene.getBounds());
+            scene.paint(g);
+            long painted = System.nanoTime();
+            timings.add(Phase.LAYOUT, laidOut - start);
+            timings.add(Phase.VALIDATE, validated - laidOut);
+            timings.add(Phase.PAINT, painted - validated);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void fit(Graphics2D g, Rectangle bounds) {
+        if (bounds == null || bounds.isEmpty()) {
+            return;
+        }
+        double zoom = scene.getZoomFactor();
+        double scale = Math.min(image.getWidth() / (bounds.width * zoom),
+                image.getHeight() / (bounds.height * zoom));
+        g.scale(scale, scale);
+        g.translate(-bounds.x * zoom, -bounds.y * zoom);
+    }
+
+    enum Layouts {
+        STATIC,
+        CIRCLE,
+        FR,
+        FORCEDIR;
+
+        Layout<String, String> create(Graph<String, String> graph, Dimension size) {
+            switch (this) {
+                case STATIC:
+                    return new StaticLayout<>(graph, new RandomLocationTransformer<>(size, 42), size);
+                case CIRCLE:
+                    CircleLayout<String, String> circle = new CircleLayout<>(graph);
+                    circle.setSize(size);
+                    return circle;
+                case FR:
+                    return new FRLayout<>(graph, size);
+                case FORCEDIR:
+                    // The default simple-paths relatedness is exponential
+                    // on graphs with cycles
+                    return ForceDir.shortestPaths(graph, 3);
+                default:
+                    throw new AssertionError(this);
+            }
+        }
+    }
+
+    /**
+     * Render a synthetic graph and print the timings. Arguments are of the
+     * form <code>--name=value</code>: <code>nodes</code>, <code>shape</code>
+     * (a GraphShape), <code>layout</code> (static, circle, fr or forcedir),
+     * <code>frames</code>, <code>width</code>, <code>height</code>,
+     * <code>seed</code>, <code>json</code> (a file to write the timings to)
+     * and <code>png</code> (a file to write the last frame to).
+     *
+     * @param args The arguments
+     * @throws IOException If a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Arguments are of the form "
+                        + "--name=value: " + arg);
+            }
+            opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        int nodes = Integer.parseInt(opts.getOrDefault("nodes", "1000"));
+        GraphShape shape = GraphShape.valueOf(opts.getOrDefault("shape", "RANDOM")
+                .toUpperCase(Locale.ROOT));
+        Layouts layoutKind = Layouts.valueOf(opts.getOrDefault("layout", "static")
+                .toUpperCase(Locale.ROOT));
+        int frames = Integer.parseInt(opts.getOrDefault("frames", "50"));
+        int width = Integer.parseInt(opts.getOrDefault("width", "1600"));
+        int height = Integer.parseInt(opts.getOrDefault("height", "1200"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+
+        SyntheticGraph synthetic = SyntheticGraph.create(shape, nodes, seed);
+        Graph<String, String> graph = synthetic.toJung();
+        Layout<String, String> layout = layoutKind.create(graph, new Dimension(4000, 4000));
+        SceneHarness harness = new SceneHarness(Scenes.create(graph, layout), width, height)
+                .render(frames);
+
+        System.out.println(synthetic + ", " + layoutKind.name().toLowerCase(Locale.ROOT)
+                + " layout, " + frames + " frames at " + width + "x" + height);
+        System.out.print(harness.timings());
+        String json = opts.get("json");
+        if (json != null) {
+            String out = String.format(Locale.ROOT, "{\"shape\":\"%s\",\"nodes\":%d,"
+                    + "\"edges\":%d,\"layout\":\"%s\",\"frames\":%d,\"width\":%d,"
+                    + "\"height\":%d,\"timings\":%s}%n", shape, synthetic.nodeCount(),
+                    synthetic.edgeCount(), layoutKind.name().toLowerCase(Locale.ROOT),
+                    frames, width, height, harness.timings().toJson());
+            Files.write(Paths.get(json), out.getBytes(StandardCharsets.UTF_8));
+        }
+        String png = opts.get("png");
+        if (png != null) {
+            ImageIO.write(harness.image(), "png", Paths.get(png).toFile());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import com.timboudreau.vl.jung.JungConnectionWidget;
+import com.timboudreau.vl.jung.JungScene;
+import com.timboudreau.vl.jung.extensions.BaseJungScene;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.algorithms.layout.StaticLayout;
+import edu.uci.ics.jung.algorithms.layout.util.RandomLocationTransformer;
+import edu.uci.ics.jung.graph.Graph;
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import org.netbeans.api.visual.widget.Scene;
+import org.netbeans.api.visual.widget.Widget;
+
+/**
+ * Creates scenes with no view, and runs work against them on the event
+ * thread the way a displayed scene would see it - the scene animator ticks
+ * there, so touching a scene from the benchmark thread is a race.
+ *
+ * @author Tim Boudreau
+ */
+final class Scenes {
+
+    private static final Graphics2D OFFSCREEN
+            = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+    private Scenes() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Create a scene laid out in a fixed-seed random layout, so the cost of
+     * performLayout() is the scene's and not the layout algorithm's.
+     *
+     * @param graph A graph
+     * @return A scene, not yet synced with the graph, whose edge widgets are
+     * Connections
+     */
+    static BaseJungScene<String, String> create(Graph<String, String> graph) {
+        Dimension size = new Dimension(4000, 4000);
+        return create(graph, new StaticLayout<>(graph,
+                new RandomLocationTransformer<>(size, 42), size));
+    }
+
+    static BaseJungScene<String, String> create(Graph<String, String> graph,
+            Layout<String, String> layout) {
+        try {
+            return new BaseJungScene<String, String>(graph, layout) {
+                @Override
+                protected Widget createEdgeWidget(String edge) {
+                    return new Connection(this, edge);
+                }
+            };
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The same widget BaseJungScene creates for edges, with the bounds
+     * computation exposed - getPreferredBounds() is cached between
+     * validations, so calling it would not measure the edge shape.
+     */
+    static final class Connection extends JungConnectionWidget<String, String> {
+
+        Connection(JungScene<String, String> scene, String edge) {
+            super(scene, JungConnectionWidget.quadratic(scene.graph()), edge);
+        }
+
+        Rectangle computeBounds() {
+            return calculateClientArea();
+        }
+    }
+
+    /**
+     * Validate a scene against an offscreen graphics context; with no view,
+     * Scene.validate() has nothing to measure text with and skips layout.
+     *
+     * @param scene A scene
+     */
+    static void validate(Scene scene) {
+        scene.validate(OFFSCREEN);
+    }
+
+    static void onEventThread(Runnable run) {
+        if (EventQueue.isDispatchThread()) {
+            run.run();
+            return;
+        }
+        try {
+            EventQueue.invokeAndWait(run);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import com.mastfrog.graph.IntGraph;
+import com.mastfrog.graph.IntGraphBuilder;
+import com.mastfrog.graph.ObjectGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A generated graph, convertible to a JUNG graph for scenes or to a mastfrog
+ * ObjectGraph for the adapter and force-directed layout.
+ *
+ * @author Tim Boudreau
+ */
+public final class SyntheticGraph {
+
+    private final GraphShape shape;
+    private final List<String> names;
+    private final int[][] edges;
+
+    private SyntheticGraph(GraphShape shape, int nodes, int[][] edges) {
+        this.shape = shape;
+        this.edges = edges;
+        names = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            names.add("n" + i);
+        }
+    }
+
+    public static SyntheticGraph create(GraphShape shape, int nodes, long seed) {
+        return new SyntheticGraph(shape, nodes, shape.edges(nodes, seed));
+    }
+
+    public GraphShape shape() {
+        return shape;
+    }
+
+    public int nodeCount() {
+        return names.size();
+    }
+
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    public String node(int index) {
+        return names.get(index);
+    }
+
+    public int[] edge(int index) {
+        return edges[index];
+    }
+
+    /**
+     * Create a JUNG graph of this graph, whose edges are named by their
+     * endpoints.
+     *
+     * @return A new graph
+     */
+    public DirectedSparseGraph<String, String> toJung() {
+        DirectedSparseGraph<String, String> result = new DirectedSparseGraph<>();
+        for (String name : names) {
+            result.addVertex(name);
+        }
+        for (int[] edge : edges) {
+            String src = names.get(edge[0]);
+            String dest = names.get(edge[1]);
+            result.addEdge(src + "->" + dest, src, dest);
+        }
+        return result;
+    }
+
+    public ObjectGraph<String> toObjectGraph() {
+        IntGraphBuilder bldr = IntGraph.builder();
+        for (int[] edge : edges) {
+            bldr.addEdge(edge[0], edge[1]);
+        }
+        return bldr.build().toObjectGraph(names);
+    }
+
+    @Override
+    public String toString() {
+        return shape + "(" + names.size() + " nodes, " + edges.length + " edges)";
+    }
+}
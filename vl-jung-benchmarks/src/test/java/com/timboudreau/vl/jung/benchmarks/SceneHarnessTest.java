@@ -0,0 +1,110 @@
+/* 
+ * Copyright (c) 2020, Tim Boudreau
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.timboudreau.vl.jung.benchmarks;
+
+import com.timboudreau.vl.jung.benchmarks.PhaseTimings.Phase;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.graph.Graph;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Tim Boudreau
+ */
+public class SceneHarnessTest {
+
+    @Test
+    public void testRendersFramesWithoutADisplay() {
+        SyntheticGraph synthetic = SyntheticGraph.create(GraphShape.TREE, 200, 42);
+        SceneHarness harness = new SceneHarness(Scenes.create(synthetic.toJung()),
+                400, 300).render(3);
+        PhaseTimings timings = harness.timings();
+        assertEquals(1, timings.count(Phase.SYNC));
+        assertEquals(3, timings.count(Phase.LAYOUT));
+        assertEquals(3, timings.count(Phase.VALIDATE));
+        assertEquals(3, timings.count(Phase.PAINT));
+        assertEquals(synthetic.nodeCount(), harness.scene().getNodes().size());
+        assertTrue(timings.framesPerSecond() > 0);
+        assertTrue(timings.toJson(), timings.toJson().contains("\"paint\":{\"count\":3,"));
+
+        harness.render(2);
+        assertEquals("Sync should only happen once", 1, timings.count(Phase.SYNC));
+        assertEquals(5, timings.count(Phase.PAINT));
+
+        BufferedImage img = harness.image();
+        int background = Color.WHITE.getRGB();
+        int painted = 0;
+        for (int y = 0; y < img.getHeight(); y++) {
+            for (int x = 0; x < img.getWidth(); x++) {
+                if (img.getRGB(x, y) != background) {
+                    painted++;
+                }
+            }
+        }
+        assertTrue("Nothing painted", painted > 1000);
+    }
+
+    @Test
+    public void testIterativeLayoutsAreSteppedEachFrame() {
+        // Cyclic, so a layout using simple-paths relatedness would never
+        // get past construction
+        SyntheticGraph synthetic = SyntheticGraph.create(GraphShape.RANDOM, 150, 42);
+        for (SceneHarness.Layouts kind : new SceneHarness.Layouts[]{
+            SceneHarness.Layouts.FR, SceneHarness.Layouts.FORCEDIR}) {
+            Graph<String, String> graph = synthetic.toJung();
+            Layout<String, String> layout = kind.create(graph, new Dimension(4000, 4000));
+            SceneHarness harness = new SceneHarness(Scenes.create(graph, layout), 400, 300);
+            harness.render(1);
+            List<Point2D> before = positions(graph, layout);
+            harness.render(4);
+            PhaseTimings timings = harness.timings();
+            assertEquals(kind.name(), 5, timings.count(Phase.LAYOUT));
+            assertEquals(kind.name(), 5, timings.count(Phase.PAINT));
+            assertEquals(kind.name(), synthetic.nodeCount(), harness.scene().getNodes().size());
+            assertNotEquals(kind + " did not move anything", before, positions(graph, layout));
+        }
+    }
+
+    private static List<Point2D> positions(Graph<String, String> graph,
+            Layout<String, String> layout) {
+        // Copy, since some layouts reuse the points they return
+        List<Point2D> result = new ArrayList<>();
+        for (String node : graph.getVertices()) {
+            result.add(new Point2D.Double(layout.apply(node).getX(),
+                    layout.apply(node).getY()));
+        }
+        return result;
+    }
+}